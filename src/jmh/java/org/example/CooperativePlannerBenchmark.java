@@ -0,0 +1,60 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// One operation is one tick of the fleet; a round of window plans, one per robot, runs every
+// window/2 ticks. Robots that arrive get a new goal, so the fleet never settles.
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CooperativePlannerBenchmark {
+    @Param({"200"})
+    public int size;
+
+    @Param({"100", "300"})
+    public int robots;
+
+    // Share of the closed walls opened again; a perfect maze leaves robots nowhere to pass
+    @Param({"0.1"})
+    public double braid;
+
+    private CooperativePlanner planner;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void createFleet() {
+        MazeModel maze = MazeFixture.create(size);
+        random = new SplittableRandom(MazeFixture.TARGET_SEED);
+        for (int cell = 0; cell < maze.getCellCount(); cell++) {
+            for (int direction = MazeModel.RIGHT; direction <= MazeModel.DOWN; direction++) {
+                if (maze.neighbor(cell, direction) >= 0 && !maze.isOpen(cell, direction)
+                        && random.nextDouble() < braid) {
+                    maze.setOpen(cell, direction, true);
+                }
+            }
+        }
+        planner = new CooperativePlanner(maze);
+        boolean[] taken = new boolean[maze.getCellCount()];
+        for (int i = 0; i < robots; i++) {
+            int start;
+            do {
+                start = random.nextInt(maze.getCellCount());
+            } while (taken[start]);
+            taken[start] = true;
+            planner.addRobot(start, random.nextInt(maze.getCellCount()));
+        }
+    }
+
+    @Benchmark
+    public long tick() {
+        planner.step();
+        for (int r = 0; r < robots; r++) {
+            if (planner.getPosition(r) == planner.getGoal(r)) {
+                planner.setGoal(r, random.nextInt(planner.getMaze().getCellCount()));
+            }
+        }
+        return planner.getPlanCount();
+    }
+}
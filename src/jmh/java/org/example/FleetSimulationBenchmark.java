@@ -0,0 +1,44 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// One operation is one tick of the whole fleet, so throughput reads as ticks per second
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FleetSimulationBenchmark {
+    @Param({"1000"})
+    public int size;
+
+    @Param({"1000", "10000"})
+    public int robots;
+
+    // -1 uses one worker per core besides the benchmark thread
+    @Param({"0", "-1"})
+    public int workers;
+
+    private FleetSimulation simulation;
+
+    @Setup(Level.Trial)
+    public void createFleet() {
+        MazeModel maze = MazeFixture.create(size);
+        simulation = workers < 0 ? new FleetSimulation(maze) : new FleetSimulation(maze, workers);
+        SplittableRandom random = new SplittableRandom(MazeFixture.TARGET_SEED);
+        for (int i = 0; i < robots; i++) {
+            simulation.addRobot(random.nextInt(size), random.nextInt(size), random.nextInt(4));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopWorkers() {
+        simulation.close();
+    }
+
+    @Benchmark
+    public long tick() {
+        simulation.tick();
+        return simulation.getMoveCount();
+    }
+}
@@ -0,0 +1,18 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+public class LabyrinthGeneratorBenchmark {
+    @Param({"16", "64", "256", "1024", "2048"})
+    public int size;
+
+    @Param({"BACKTRACKER", "ELLER"})
+    public LabyrinthGenerator.Algorithm algorithm;
+
+    // generateLabyrinth() is generate() plus the Swing view; the view is not measured here
+    @Benchmark
+    public MazeModel generate() {
+        return new LabyrinthGenerator(size, size).generate(algorithm);
+    }
+}
@@ -0,0 +1,16 @@
+package org.example;
+
+// Deterministic mazes for the benchmarks: generator seed is fixed, targets use their own seed
+final class MazeFixture {
+    static final long TARGET_SEED = 42;
+    static final int TARGET_COLORS = 3;
+
+    private MazeFixture() {
+    }
+
+    static MazeModel create(int size) {
+        MazeModel maze = new LabyrinthGenerator(size, size).generate();
+        LabyrinthGenerator.placeTargets(maze, TARGET_COLORS, new MazeSeed(TARGET_SEED), 0);
+        return maze;
+    }
+}
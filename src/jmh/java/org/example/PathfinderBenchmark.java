@@ -0,0 +1,31 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+public class PathfinderBenchmark {
+    @Param({"16", "64", "256", "1024", "2048"})
+    public int size;
+
+    private MazeModel maze;
+
+    @Setup(Level.Trial)
+    public void createMaze() {
+        maze = MazeFixture.create(size);
+    }
+
+    @Benchmark
+    public int[] aStar() {
+        return AStarPathfinder.findOptimalPath(maze, 0);
+    }
+
+    @Benchmark
+    public int[] gridBfs() {
+        return GridPathfinder.findShortestPathToColors(maze, 0);
+    }
+
+    @Benchmark
+    public int[] routePlanner() {
+        return RoutePlanner.planRoute(maze, 0);
+    }
+}
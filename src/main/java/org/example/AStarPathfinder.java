@@ -1,194 +1,281 @@
 package org.example;
 
-import java.awt.Color;
 import java.util.*;
 
 public class AStarPathfinder {
-    // Node class to store path and state information for A* search
-    private static class PathNode implements Comparable<PathNode> {
-        GridCell cell;                // Current cell
-        List<GridCell> pathSoFar;     // Path taken to reach this cell
-        Set<Color> colorsFound;       // Colors found along the path
-        double gScore;                // Cost from start to current node
-        double fScore;                // Estimated total cost (g + h)
-
-        PathNode(GridCell cell, List<GridCell> pathSoFar, Set<Color> colorsFound, double gScore, double hScore) {
-            this.cell = cell;
-            this.pathSoFar = new ArrayList<>(pathSoFar);
-            this.pathSoFar.add(cell);
-            this.colorsFound = new HashSet<>(colorsFound);
-            if (isTargetColor(cell.getCellColor())) {
-                this.colorsFound.add(cell.getCellColor());
-            }
-            this.gScore = gScore;
-            this.fScore = gScore + hScore;
-        }
-
-        @Override
-        public int compareTo(PathNode other) {
-            return Double.compare(this.fScore, other.fScore);
-        }
-
-        static boolean isTargetColor(Color color) {
-            return color.equals(Color.ORANGE) ||
-                    color.equals(Color.BLUE) ||
-                    color.equals(Color.GREEN);
-        }
-
-        boolean hasFoundAllColors() {
-            return colorsFound.size() == 3;
-        }
+    // Graph the search runs on; all of them return the same shortest walk
+    public enum Strategy {
+        // Every maze cell is a node
+        FLAT,
+        // Corridors contracted into weighted edges between junctions
+        JUNCTION_GRAPH,
+        // Cluster abstraction, refined only inside the clusters on the path
+        HIERARCHICAL
     }
 
-    // Helper class to store state information for visited nodes
-    private static class VisitedState {
-        double gScore;
-        Set<Color> colors;
-
-        VisitedState(double gScore, Set<Color> colors) {
-            this.gScore = gScore;
-            this.colors = colors;
-        }
-    }
+    private static final int NO_PARENT = -1;
+    private static final int EMPTY = -1;
+
+    // A* over packed (node, colour mask) states of a SearchGraph. Every discovered state gets
+    // a slot in primitive arrays; the open set is an indexed heap of slots and the path is
+    // rebuilt from parent slots, so nothing is allocated per expansion. Without the heuristic
+    // this is a uniform-cost search.
+    private static final class Search {
+        final SearchGraph graph;
+        final MazeModel maze;
+        final boolean informed;
+        final int colorBits;                    // number of distinct target ids
+        final int fullMask;
+        final int[] bitOfId = new int[Long.SIZE];
+        final int[] targetRows;                 // targets grouped by colour bit
+        final int[] targetCols;
+        final int[] colorStart;                 // targets of bit b are [colorStart[b], colorStart[b + 1])
+
+        int[] table;                            // open addressing: packed state -> slot
+        int tableMask;
+        int[] states = new int[1024];           // packed state of every slot
+        int[] gScores = new int[1024];
+        int[] parents = new int[1024];
+        boolean[] closed = new boolean[1024];
+        int slotCount;
+        final IntMinHeap openSet = new IntMinHeap(1024);
+        long expanded;                          // probe counters, published once per solve
+        long generated;
+        long duplicates;
+        long heuristicEvaluations;
+        long peakOpen;
+
+        Search(SearchGraph graph, boolean informed) {
+            this.graph = graph;
+            this.maze = graph.getMaze();
+            this.informed = informed;
+            long idMask = maze.getTargetIdMask();
+            colorBits = Long.bitCount(idMask);
+            if (((long) graph.getNodeCount() << colorBits) > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many target colours (" + colorBits
+                        + ") for a graph of " + graph.getNodeCount() + " nodes");
+            }
+            fullMask = (1 << colorBits) - 1;
+            for (int id = 0; id < Long.SIZE; id++) {
+                bitOfId[id] = Long.bitCount(idMask & ((1L << id) - 1));
+            }
 
-    // Calculate Manhattan distance between two cells
-    private static double manhattanDistance(GridCell a, GridCell b) {
-        return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
-    }
+            int targetCount = maze.getTargetCount();
+            colorStart = new int[colorBits + 1];
+            for (int i = 0; i < targetCount; i++) {
+                colorStart[bitOfId[maze.getTargetId(i)] + 1]++;
+            }
+            for (int b = 0; b < colorBits; b++) {
+                colorStart[b + 1] += colorStart[b];
+            }
+            targetRows = new int[targetCount];
+            targetCols = new int[targetCount];
+            int[] fill = Arrays.copyOf(colorStart, colorBits);
+            for (int i = 0; i < targetCount; i++) {
+                int pos = fill[bitOfId[maze.getTargetId(i)]]++;
+                targetRows[pos] = maze.row(maze.getTargetCell(i));
+                targetCols[pos] = maze.col(maze.getTargetCell(i));
+            }
 
-    // Calculate heuristic value for remaining unvisited colored cells
-    private static double calculateHeuristic(GridCell current, List<GridCell> coloredCells, Set<Color> foundColors) {
-        double minDistance = Double.MAX_VALUE;
+            table = new int[4096];
+            Arrays.fill(table, EMPTY);
+            tableMask = table.length - 1;
+        }
 
-        // If we've found all colors, no additional heuristic needed
-        if (foundColors.size() == 3) {
-            return 0;
+        int maskAt(int node) {
+            int id = maze.targetAt(graph.cellOf(node));
+            return id == MazeModel.NO_TARGET ? 0 : 1 << bitOfId[id];
         }
 
-        // Find the nearest unvisited colored cell
-        for (GridCell coloredCell : coloredCells) {
-            if (!foundColors.contains(coloredCell.getCellColor())) {
-                double distance = manhattanDistance(current, coloredCell);
-                minDistance = Math.min(minDistance, distance);
+        // Admissible and consistent: the farthest of the nearest cells of every missing colour.
+        // Edge weights are corridor lengths, which never undercut the Manhattan distance.
+        int heuristic(int node, int mask) {
+            if (!informed) {
+                return 0;
+            }
+            heuristicEvaluations++;
+            int cell = graph.cellOf(node);
+            int row = maze.row(cell);
+            int col = maze.col(cell);
+            int estimate = 0;
+            for (int b = 0; b < colorBits; b++) {
+                if ((mask & (1 << b)) != 0) {
+                    continue;
+                }
+                int nearest = Integer.MAX_VALUE;
+                for (int t = colorStart[b]; t < colorStart[b + 1]; t++) {
+                    nearest = Math.min(nearest, Math.abs(targetRows[t] - row) + Math.abs(targetCols[t] - col));
+                }
+                estimate = Math.max(estimate, nearest);
             }
+            return estimate;
         }
 
-        return minDistance;
-    }
-
-    // Find all colored cells in the grid
-    private static List<GridCell> findColoredCells(GridCell start) {
-        List<GridCell> coloredCells = new ArrayList<>();
-        Set<GridCell> visited = new HashSet<>();
-        Queue<GridCell> queue = new LinkedList<>();
-
-        queue.add(start);
-        visited.add(start);
-
-        while (!queue.isEmpty()) {
-            GridCell current = queue.poll();
-
-            if (PathNode.isTargetColor(current.getCellColor())) {
-                coloredCells.add(current);
+        // Returns the slot of a packed state, creating it with an unknown score if needed
+        int slotOf(int state) {
+            int i = mix(state) & tableMask;
+            while (table[i] != EMPTY) {
+                if (states[table[i]] == state) {
+                    return table[i];
+                }
+                i = (i + 1) & tableMask;
+            }
+            if (slotCount == states.length) {
+                int capacity = states.length * 2;
+                states = Arrays.copyOf(states, capacity);
+                gScores = Arrays.copyOf(gScores, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                closed = Arrays.copyOf(closed, capacity);
             }
+            int slot = slotCount++;
+            states[slot] = state;
+            gScores[slot] = Integer.MAX_VALUE;
+            parents[slot] = NO_PARENT;
+            table[i] = slot;
+            if (slotCount * 2 > table.length) {
+                rehash();
+            }
+            return slot;
+        }
 
-            for (GridCell neighbor : current.getNeighbors()) {
-                if (!visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    queue.add(neighbor);
+        void rehash() {
+            table = new int[table.length * 2];
+            Arrays.fill(table, EMPTY);
+            tableMask = table.length - 1;
+            for (int slot = 0; slot < slotCount; slot++) {
+                int i = mix(states[slot]) & tableMask;
+                while (table[i] != EMPTY) {
+                    i = (i + 1) & tableMask;
                 }
+                table[i] = slot;
             }
         }
 
-        return coloredCells;
-    }
-
-    public static List<GridCell> findOptimalPath(GridCell start) {
-        // Find all colored cells first for heuristic calculation
-        List<GridCell> coloredCells = findColoredCells(start);
+        static int mix(int state) {
+            int h = state * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
 
-        // Priority queue for A* open set
-        PriorityQueue<PathNode> openSet = new PriorityQueue<>();
+        // Lower f first; on equal f prefer the deeper state to finish ties quickly
+        static long priority(int g, int h) {
+            return ((long) (g + h) << 32) | (Integer.MAX_VALUE - g);
+        }
 
-        // Map to track best known scores for each state
-        Map<String, VisitedState> bestScores = new HashMap<>();
+        int[] run(int startNode) {
+            int startMask = maskAt(startNode);
+            int startSlot = slotOf(startNode << colorBits | startMask);
+            gScores[startSlot] = 0;
+            openSet.push(startSlot, priority(0, heuristic(startNode, startMask)));
+            int[] neighbors = new int[graph.getMaxDegree()];
+            int[] weights = new int[neighbors.length];
+
+            while (!openSet.isEmpty()) {
+                if ((++expanded & Cancellation.CHECK_MASK) == 0) {
+                    Cancellation.checkpoint();
+                }
+                int slot = openSet.poll();
+                int state = states[slot];
+                int node = state >>> colorBits;
+                int mask = state & fullMask;
+
+                // Check if we've found all colors
+                if (mask == fullMask) {
+                    return backtrack(slot);
+                }
+                closed[slot] = true;
+
+                int count = graph.edges(node, neighbors, weights);
+                generated += count;
+                for (int i = 0; i < count; i++) {
+                    int neighbor = neighbors[i];
+                    int newGScore = gScores[slot] + weights[i];
+                    int neighborMask = mask | maskAt(neighbor);
+                    int neighborSlot = slotOf(neighbor << colorBits | neighborMask);
+                    if (closed[neighborSlot] || newGScore >= gScores[neighborSlot]) {
+                        duplicates++;
+                        continue;
+                    }
+                    gScores[neighborSlot] = newGScore;
+                    parents[neighborSlot] = slot;
+                    openSet.push(neighborSlot, priority(newGScore, heuristic(neighbor, neighborMask)));
+                }
+                if (openSet.size() > peakOpen) {
+                    peakOpen = openSet.size();
+                }
+            }
 
-        // Initialize search with starting node
-        PathNode startNode = new PathNode(start, new ArrayList<>(), new HashSet<>(), 0,
-                calculateHeuristic(start, coloredCells, new HashSet<>()));
-        openSet.add(startNode);
+            return new int[0]; // Return empty path if no path is found
+        }
 
-        while (!openSet.isEmpty()) {
-            PathNode current = openSet.poll();
+        // Counts how much this search did into the solver's probe
+        int[] finish(int[] path, SolveEvent event, long startNanos) {
+            Metrics.SolverProbe probe = informed ? Metrics.ASTAR : Metrics.GRID;
+            probe.record(event, startNanos, graph.getNodeCount(), path.length, expanded, generated, duplicates,
+                    heuristicEvaluations, peakOpen);
+            return path;
+        }
 
-            // Check if we've found all colors
-            if (current.hasFoundAllColors()) {
-                return current.pathSoFar;
+        // Expands the chain of parent slots edge by edge into maze cells
+        int[] backtrack(int slot) {
+            int hops = 0;
+            for (int s = slot; parents[s] != NO_PARENT; s = parents[s]) {
+                hops++;
             }
-
-            // Generate state key for current node
-            String stateKey = current.cell.x + "," + current.cell.y + "," +
-                    current.colorsFound.toString();
-
-            // Check if we've found a better path to this state
-            VisitedState bestScore = bestScores.get(stateKey);
-            if (bestScore != null && bestScore.gScore <= current.gScore) {
-                continue;
+            int[] chain = new int[hops + 1];
+            for (int i = hops, s = slot; i >= 0; i--, s = parents[s]) {
+                chain[i] = s;
             }
 
-            // Update best score for this state
-            bestScores.put(stateKey, new VisitedState(current.gScore, current.colorsFound));
+            int[] path = new int[gScores[slot] + 1];
+            path[0] = graph.cellOf(states[chain[0]] >>> colorBits);
+            for (int i = 1; i < chain.length; i++) {
+                int from = chain[i - 1];
+                int to = chain[i];
+                graph.appendEdge(states[from] >>> colorBits, states[to] >>> colorBits,
+                        gScores[to] - gScores[from], path, gScores[from] + 1);
+            }
+            return path;
+        }
+    }
 
-            // Explore neighbors
-            for (GridCell neighbor : current.cell.getNeighbors()) {
-                // Calculate new g score (cost to reach neighbor)
-                double newGScore = current.gScore + 1;
+    public static List<GridCell> findOptimalPath(GridCell start) {
+        GameGrid grid = start.getGrid();
+        if (grid == null) {
+            throw new IllegalArgumentException("Cell " + start.x + "," + start.y + " is not part of a maze");
+        }
+        return grid.toCells(findOptimalPath(grid.getModel(), start.getIndex()));
+    }
 
-                // Calculate heuristic for neighbor
-                double hScore = calculateHeuristic(neighbor, coloredCells, current.colorsFound);
+    // Shortest walk from start through one cell of every target id; empty if there is none
+    public static int[] findOptimalPath(MazeModel maze, int start) {
+        return search(maze, start, true);
+    }
 
-                // Create new path node for neighbor
-                PathNode neighborNode = new PathNode(
-                        neighbor,
-                        current.pathSoFar,
-                        current.colorsFound,
-                        newGScore,
-                        hScore
-                );
+    // One-off query: HIERARCHICAL builds every cluster for it, so it only pays off when the
+    // caller keeps a HierarchicalPathfinder (as IncrementalPlanner does) across queries
+    public static int[] findOptimalPath(MazeModel maze, int start, Strategy strategy) {
+        return switch (strategy) {
+            case FLAT -> findOptimalPath(maze, start);
+            case JUNCTION_GRAPH -> findOptimalPath(JunctionGraph.build(maze, start));
+            case HIERARCHICAL -> new HierarchicalPathfinder(maze).findOptimalPath(start);
+        };
+    }
 
-                openSet.add(neighborNode);
-            }
-        }
+    // Same walk searched on the contracted graph, from the start it was built for
+    public static int[] findOptimalPath(JunctionGraph graph) {
+        return search(graph, graph.getStartNode(), true);
+    }
 
-        return new ArrayList<>(); // Return empty list if no path is found
+    // Searches from startNode and returns the walk as maze cells
+    static int[] search(SearchGraph graph, int startNode, boolean informed) {
+        long startNanos = Metrics.start();
+        SolveEvent event = Metrics.beginSolve();
+        Search search = new Search(graph, informed);
+        return search.finish(search.run(startNode), event, startNanos);
     }
-    // Helper method to visualize the path
-    public static void visualizePath(List<GridCell> path) {
-        if (path.isEmpty()) {
-            System.out.println("No valid path found!");
-            return;
-        }
 
-        // Store original colors and visited cells
-        Map<GridCell, Color> originalColors = new HashMap<>();
-        Set<GridCell> visitedCells = new HashSet<>();
-
-        for (GridCell cell : path) {
-            // Store original color if not already done
-            originalColors.putIfAbsent(cell, cell.getCellColor());
-
-            // Check if the cell was visited before
-            if (visitedCells.contains(cell)) {
-                // Change color to magenta if revisited
-                if(!PathNode.isTargetColor(cell.getCellColor()))
-                    cell.setCellColor(Color.YELLOW); // Magenta
-            } else {
-                // Set color for the first visit (e.g., light yellow)
-                if (!PathNode.isTargetColor(cell.getCellColor())) {
-                    cell.setCellColor(new Color(255, 255, 200)); // Light yellow
-                }
-                visitedCells.add(cell);
-            }
-        }
+    // Helper method to visualize the path; revealed frame by frame on the EDT
+    public static void visualizePath(List<GridCell> path) {
+        PathAnimator.animate(path);
     }
-}
\ No newline at end of file
+}
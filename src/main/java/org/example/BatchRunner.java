@@ -0,0 +1,181 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Headless entry point: generates mazes from one base seed (maze i from MazeSeed(seed).forMaze(i)),
+ * places targets, solves them on a work-stealing pool and streams one result line per maze as
+ * CSV or JSON lines, in maze order. Never touches AWT, so it runs on build machines without a
+ * display.
+ *
+ *   java -cp ... org.example.BatchRunner --count=1000 --rows=200 --cols=200 --solver=astar --format=csv --out=results.csv
+ *
+ * Options (all --name=value): count, rows, cols, targets, seed, solver (astar, junction,
+ * hierarchical, grid), algorithm (backtracker, eller), threads, format (csv, jsonl), out
+ * (default stdout) and save, a directory every maze is also written to as a MazeFile.
+ */
+public class BatchRunner {
+    public enum Solver {
+        ASTAR,
+        JUNCTION,
+        HIERARCHICAL,
+        GRID
+    }
+
+    public enum Format {
+        CSV,
+        JSONL
+    }
+
+    private static final String CSV_HEADER =
+            "index,seed,rows,cols,algorithm,solver,targets,path_length,expanded,generate_ms,solve_ms";
+
+    private int rows = 100;
+    private int cols = 100;
+    private int targets = 3;
+    private long seed = 1;
+    private Solver solver = Solver.ASTAR;
+    private LabyrinthGenerator.Algorithm algorithm = LabyrinthGenerator.Algorithm.BACKTRACKER;
+    private Format format = Format.CSV;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path saveDir;
+
+    public static void main(String[] args) {
+        BatchRunner runner = new BatchRunner();
+        int count = 100;
+        Path out = null;
+        try {
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String value = arg.substring(eq + 1);
+                switch (arg.substring(2, eq)) {
+                    case "count" -> count = Integer.parseInt(value);
+                    case "rows" -> runner.rows = Integer.parseInt(value);
+                    case "cols" -> runner.cols = Integer.parseInt(value);
+                    case "targets" -> runner.targets = Integer.parseInt(value);
+                    case "seed" -> runner.seed = Long.parseLong(value);
+                    case "solver" -> runner.solver = Solver.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "algorithm" -> runner.algorithm = LabyrinthGenerator.Algorithm.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "format" -> runner.format = Format.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "threads" -> runner.threads = Integer.parseInt(value);
+                    case "out" -> out = Path.of(value);
+                    case "save" -> runner.saveDir = Path.of(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if (count < 0 || runner.threads < 1 || runner.targets < 0 || runner.targets > Long.SIZE) {
+                throw new IllegalArgumentException("count, threads or targets out of range");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BatchRunner [--count=N] [--rows=N] [--cols=N] [--targets=N] [--seed=N]"
+                    + " [--solver=astar|junction|hierarchical|grid] [--algorithm=backtracker|eller]"
+                    + " [--threads=N] [--format=csv|jsonl] [--out=FILE] [--save=DIR]");
+            System.exit(2);
+            return;
+        }
+
+        try (Writer writer = out == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(out)) {
+            long start = System.nanoTime();
+            runner.run(count, writer);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.printf(Locale.ROOT, "%d mazes in %.2f s, %.1f mazes/s on %d threads%n",
+                    count, seconds, count / seconds, runner.threads);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // Runs count mazes and writes a header plus one line per maze, in index order
+    public void run(int count, Writer out) throws IOException {
+        if (saveDir != null) {
+            Files.createDirectories(saveDir);
+        }
+        if (format == Format.CSV) {
+            out.write(CSV_HEADER + "\n");
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // Bounded look-ahead keeps every worker busy without holding all results in memory
+            Deque<CompletableFuture<String>> pending = new ArrayDeque<>();
+            for (int i = 0; i < count; i++) {
+                if (pending.size() >= threads * 4) {
+                    out.write(take(pending));
+                }
+                int index = i;
+                pending.add(CompletableFuture.supplyAsync(() -> runOne(index), pool));
+            }
+            while (!pending.isEmpty()) {
+                out.write(take(pending));
+            }
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String take(Deque<CompletableFuture<String>> pending) {
+        try {
+            return pending.poll().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : e;
+        }
+    }
+
+    private String runOne(int index) {
+        MazeSeed mazeSeed = new MazeSeed(seed).forMaze(index);
+        long generateStart = System.nanoTime();
+        MazeModel maze = new LabyrinthGenerator(rows, cols, mazeSeed).generate(algorithm);
+        LabyrinthGenerator.placeTargets(maze, targets, mazeSeed);
+        long solveStart = System.nanoTime();
+        int[] path = switch (solver) {
+            case ASTAR -> AStarPathfinder.findOptimalPath(maze, 0, AStarPathfinder.Strategy.FLAT);
+            case JUNCTION -> AStarPathfinder.findOptimalPath(maze, 0, AStarPathfinder.Strategy.JUNCTION_GRAPH);
+            case HIERARCHICAL -> AStarPathfinder.findOptimalPath(maze, 0, AStarPathfinder.Strategy.HIERARCHICAL);
+            case GRID -> GridPathfinder.findShortestPathToColors(maze, 0);
+        };
+        long solveEnd = System.nanoTime();
+        long expanded = Metrics.getLastExpandedCount();
+        if (saveDir != null) {
+            try {
+                MazeFile.write(saveDir.resolve("maze-%06d.bin".formatted(index)), maze, mazeSeed.getValue());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // A walk of n cells has n - 1 steps; -1 if no walk exists
+        int pathLength = path.length - 1;
+        double generateMillis = (solveStart - generateStart) / 1e6;
+        double solveMillis = (solveEnd - solveStart) / 1e6;
+        String algorithmName = algorithm.name().toLowerCase(Locale.ROOT);
+        String solverName = solver.name().toLowerCase(Locale.ROOT);
+        if (format == Format.CSV) {
+            return String.format(Locale.ROOT, "%d,%d,%d,%d,%s,%s,%d,%d,%d,%.3f,%.3f%n", index, mazeSeed.getValue(), rows, cols,
+                    algorithmName, solverName, targets, pathLength, expanded, generateMillis, solveMillis);
+        }
+        return String.format(Locale.ROOT, "{\"index\":%d,\"seed\":%d,\"rows\":%d,\"cols\":%d,\"algorithm\":\"%s\","
+                        + "\"solver\":\"%s\",\"targets\":%d,\"path_length\":%d,\"expanded\":%d,"
+                        + "\"generate_ms\":%.3f,\"solve_ms\":%.3f}%n", index, mazeSeed.getValue(), rows, cols,
+                algorithmName, solverName, targets, pathLength, expanded, generateMillis, solveMillis);
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer. Every slot carries a
+ * sequence number: producers claim a position with one CAS on the tail and publish the element
+ * by advancing the slot's sequence, the consumer frees it again by moving the sequence one lap
+ * ahead. Offers never block; a full queue simply refuses the element.
+ */
+final class BoundedMpscQueue<E> {
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // only read and written by the consumer
+
+    BoundedMpscQueue(int capacity) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    // Safe from any thread; false if the queue is full
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[slot] = element;
+                    sequences.set(slot, position + 1); // publishes the element
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false; // the consumer has not freed this slot from the previous lap
+            }
+            // Otherwise another producer claimed this position first; retry with the new tail
+        }
+    }
+
+    // Consumer only; null if empty
+    @SuppressWarnings("unchecked")
+    E poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) {
+            return null;
+        }
+        E element = (E) buffer[slot];
+        buffer[slot] = null;
+        sequences.set(slot, head + buffer.length);
+        head++;
+        return element;
+    }
+
+    // Consumer only; moves up to limit elements into out and returns how many
+    int drainTo(Collection<? super E> out, int limit) {
+        int count = 0;
+        E element;
+        while (count < limit && (element = poll()) != null) {
+            out.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    // Consumer only
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    // Approximate while producers are running
+    int size() {
+        return (int) Math.max(0, Math.min(buffer.length, tail.get() - head));
+    }
+}
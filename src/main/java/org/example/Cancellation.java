@@ -0,0 +1,18 @@
+package org.example;
+
+import java.util.concurrent.CancellationException;
+
+// Cooperative cancellation for long searches: a solve is cancelled by interrupting its thread
+final class Cancellation {
+    // Searches call checkpoint() once per this many iterations (mask + 1)
+    static final int CHECK_MASK = 1023;
+
+    private Cancellation() {
+    }
+
+    static void checkpoint() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Solve cancelled");
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Windowed hierarchical cooperative A* (WHCA*) for many robots on one maze. Every replanning
+ * round the robots plan one after another against a shared space-time reservation table:
+ * each searches (cell, time) states up to the window depth, may wait in place, avoids cells
+ * and swaps reserved by robots that planned before it, and then reserves its own window.
+ * Beyond the window the true distance to the goal (a BFS field per goal) is the cost, so
+ * robots still make progress through long corridors. Fields are shared by the robots heading
+ * for the same goal and dropped once no robot heads there any more. The planning order rotates every round
+ * so no robot is always last. Rounds happen every window/2 ticks, which bounds the planning
+ * work per tick by the number of robots times the expansion limit of one search.
+ */
+public class CooperativePlanner {
+    public static final int DEFAULT_WINDOW = 16;
+    private static final int MAX_EXPANSIONS = 1 << 14; // per robot and round
+    private static final int NONE = -1;
+
+    private final MazeModel maze;
+    private final int window;
+    private final int replanInterval;
+    private final ParallelBfs bfs = new ParallelBfs();
+    private final Map<Integer, GoalField> goalFields = new HashMap<>();
+
+    private int count;
+    private int[] positions = new int[16];
+    private int[] goals = new int[16];
+    private int[][] goalDistances = new int[16][];
+    private int[][] plans = new int[16][];  // cell of each robot at every step of the current round
+    private int planStep;
+    private boolean replanNeeded = true;
+    private int firstInOrder;
+    private int[] order = new int[0];
+    private boolean[] stuck = new boolean[0];
+
+    private final SpaceTimeTable reservations = new SpaceTimeTable();
+    // Search scratch, reused by every plan
+    private final SpaceTimeTable nodeIndex = new SpaceTimeTable();
+    private final IntMinHeap open = new IntMinHeap(1024);
+    private int[] nodeCell = new int[1024];
+    private int[] nodeTime = new int[1024];
+    private int[] nodeCost = new int[1024];
+    private int[] nodeParent = new int[1024];
+    private int nodeCount;
+    private final int[] neighbors = new int[4];
+
+    // Execution bookkeeping
+    private int[] occupiedStamp;
+    private int[] occupant;
+    private int stamp;
+
+    private long tick;
+    private long planCount;
+    private long planNanos;
+    private long expansionCount;
+    private long conflictCount;
+    private long fallbackCount;
+    private long collisionCount;
+
+    public CooperativePlanner(MazeModel maze) {
+        this(maze, DEFAULT_WINDOW);
+    }
+
+    public CooperativePlanner(MazeModel maze, int window) {
+        if (window < 2 || window > 0xFFFF) {
+            throw new IllegalArgumentException("Window must be between 2 and 65535 steps: " + window);
+        }
+        this.maze = maze;
+        this.window = window;
+        this.replanInterval = window / 2;
+        occupiedStamp = new int[maze.getCellCount()];
+        occupant = new int[maze.getCellCount()];
+    }
+
+    public MazeModel getMaze() {
+        return maze;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    // Adds a robot standing on start and heading for goal; returns its id
+    public int addRobot(int start, int goal) {
+        checkCell(start);
+        if (count == positions.length) {
+            positions = Arrays.copyOf(positions, count * 2);
+            goals = Arrays.copyOf(goals, count * 2);
+            goalDistances = Arrays.copyOf(goalDistances, count * 2);
+            plans = Arrays.copyOf(plans, count * 2);
+        }
+        positions[count] = start;
+        plans[count] = new int[window + 1];
+        count++;
+        setGoal(count - 1, goal);
+        return count - 1;
+    }
+
+    // Gives a robot a new goal; everyone replans on the next tick
+    public void setGoal(int robot, int goal) {
+        checkCell(goal);
+        GoalField field = goalFields.get(goal);
+        if (field == null) {
+            field = new GoalField(bfs.distances(maze, goal));
+            goalFields.put(goal, field);
+        }
+        field.users++;
+        if (goalDistances[robot] != null) {
+            releaseGoal(goals[robot]);
+        }
+        goals[robot] = goal;
+        goalDistances[robot] = field.distances;
+        replanNeeded = true;
+    }
+
+    private void releaseGoal(int goal) {
+        GoalField field = goalFields.get(goal);
+        if (--field.users == 0) {
+            goalFields.remove(goal);
+        }
+    }
+
+    // Distance fields currently kept, one per goal some robot is heading for
+    public int getGoalFieldCount() {
+        return goalFields.size();
+    }
+
+    private void checkCell(int cell) {
+        if (cell < 0 || cell >= maze.getCellCount()) {
+            throw new IllegalArgumentException("Cell outside the maze: " + cell);
+        }
+    }
+
+    public int getRobotCount() {
+        return count;
+    }
+
+    public int getPosition(int robot) {
+        return positions[robot];
+    }
+
+    public int getGoal(int robot) {
+        return goals[robot];
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getArrivedCount() {
+        int arrived = 0;
+        for (int r = 0; r < count; r++) {
+            if (positions[r] == goals[r]) arrived++;
+        }
+        return arrived;
+    }
+
+    // Window plans computed, one per robot and round
+    public long getPlanCount() {
+        return planCount;
+    }
+
+    public double getPlansPerSecond() {
+        return planNanos == 0 ? 0 : planCount * 1e9 / planNanos;
+    }
+
+    public long getExpansionCount() {
+        return expansionCount;
+    }
+
+    // Plans that had to route around another robot's reservation and still found a
+    // conflict-free window; searches that fell back are counted by getFallbackCount instead
+    public long getConflictCount() {
+        return conflictCount;
+    }
+
+    // Searches that hit the expansion limit or found no safe move and fell back to a partial plan
+    public long getFallbackCount() {
+        return fallbackCount;
+    }
+
+    // Robots that ended a tick on the same cell or swapped places; only fallbacks cause these
+    public long getCollisionCount() {
+        return collisionCount;
+    }
+
+    // Moves every robot one step along its plan, replanning first when a round is due
+    public void step() {
+        if (replanNeeded || planStep >= replanInterval) {
+            replan();
+        }
+        planStep++;
+        stamp++;
+        for (int r = 0; r < count; r++) {
+            int to = plans[r][planStep];
+            positions[r] = to;
+            if (occupiedStamp[to] == stamp) {
+                collisionCount++;
+            }
+            occupiedStamp[to] = stamp;
+            occupant[to] = r;
+        }
+        // A swap shows up as the robot now on our old cell having come from our new one
+        for (int r = 0; r < count; r++) {
+            int from = plans[r][planStep - 1];
+            int to = positions[r];
+            if (from != to && occupiedStamp[from] == stamp) {
+                int other = occupant[from];
+                if (other > r && plans[other][planStep - 1] == to) {
+                    collisionCount++;
+                }
+            }
+        }
+        tick++;
+    }
+
+    // Runs the given number of ticks
+    public void run(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            step();
+        }
+    }
+
+    // Plans every robot's next window in rotating priority order
+    private void replan() {
+        long start = System.nanoTime();
+        reservations.reset(count * (window + 1));
+        // Robots that fell back last round go first, the rest in rotating order
+        if (order.length < count) {
+            order = new int[positions.length];
+            stuck = new boolean[positions.length];
+        }
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int r = (firstInOrder + i) % count;
+            if (stuck[r]) order[size++] = r;
+        }
+        for (int i = 0; i < count; i++) {
+            int r = (firstInOrder + i) % count;
+            if (!stuck[r]) order[size++] = r;
+        }
+        for (int i = 0; i < count; i++) {
+            stuck[order[i]] = !planRobot(order[i]);
+        }
+        firstInOrder = count == 0 ? 0 : (firstInOrder + 1) % count;
+        planStep = 0;
+        replanNeeded = false;
+        planNanos += System.nanoTime() - start;
+    }
+
+    // Space-time A* over (cell, step) up to the window depth; waiting on the goal is free.
+    // Returns false if no conflict-free plan for the whole window was found.
+    private boolean planRobot(int robot) {
+        int start = positions[robot];
+        int goal = goals[robot];
+        int[] distances = goalDistances[robot];
+        int[] plan = plans[robot];
+        planCount++;
+
+        nodeCount = 0;
+        open.clear();
+        nodeIndex.reset(1024);
+        int best = NONE;
+        int deepest = addNode(start, 0, 0, NONE);
+        if (distances[start] != ParallelBfs.UNREACHABLE) {
+            open.push(deepest, priority(0, distances[start], 0));
+        }
+        int expansions = 0;
+        boolean blocked = false;
+        while (!open.isEmpty() && expansions < MAX_EXPANSIONS) {
+            int node = open.poll();
+            int cell = nodeCell[node];
+            int time = nodeTime[node];
+            if (time == window) {
+                best = node;
+                break;
+            }
+            expansions++;
+            if (time > nodeTime[deepest]
+                    || time == nodeTime[deepest] && distances[cell] < distances[nodeCell[deepest]]) {
+                deepest = node;
+            }
+            int n = maze.openNeighbors(cell, neighbors);
+            for (int i = -1; i < n; i++) {
+                int next = i < 0 ? cell : neighbors[i];
+                int owner = reservations.get(next, time + 1, window);
+                if (owner != NONE && owner != robot) {
+                    blocked = true;
+                    continue;
+                }
+                // Swapping with a robot coming the other way
+                if (next != cell) {
+                    int oncoming = reservations.get(next, time, window);
+                    if (oncoming != NONE && oncoming != robot && reservations.get(cell, time + 1, window) == oncoming) {
+                        blocked = true;
+                        continue;
+                    }
+                }
+                int cost = nodeCost[node] + (next == cell && cell == goal ? 0 : 1);
+                int existing = nodeIndex.get(next, time + 1, window);
+                if (existing != NONE) {
+                    if (nodeCost[existing] <= cost || !open.contains(existing)) {
+                        continue;
+                    }
+                    nodeCost[existing] = cost;
+                    nodeParent[existing] = node;
+                    open.push(existing, priority(cost, distances[next], time + 1));
+                } else {
+                    int created = addNode(next, time + 1, cost, node);
+                    open.push(created, priority(cost, distances[next], time + 1));
+                }
+            }
+        }
+        expansionCount += expansions;
+        boolean complete = best != NONE;
+        if (!complete) {
+            fallbackCount++;
+            best = deepest;
+        } else if (blocked) {
+            conflictCount++;
+        }
+
+        // Walk back to the start, then pad a short plan by waiting on its last cell
+        int length = nodeTime[best];
+        for (int node = best; node != NONE; node = nodeParent[node]) {
+            plan[nodeTime[node]] = nodeCell[node];
+        }
+        Arrays.fill(plan, length + 1, window + 1, plan[length]);
+        for (int t = 0; t <= window; t++) {
+            reservations.put(plan[t], t, window, robot);
+        }
+        return complete;
+    }
+
+    // f = cost + distance first, deeper states first among equals
+    private long priority(int cost, int distance, int time) {
+        return (long) (cost + distance) << 16 | (window - time);
+    }
+
+    private int addNode(int cell, int time, int cost, int parent) {
+        if (nodeCount == nodeCell.length) {
+            nodeCell = Arrays.copyOf(nodeCell, nodeCount * 2);
+            nodeTime = Arrays.copyOf(nodeTime, nodeCount * 2);
+            nodeCost = Arrays.copyOf(nodeCost, nodeCount * 2);
+            nodeParent = Arrays.copyOf(nodeParent, nodeCount * 2);
+        }
+        nodeCell[nodeCount] = cell;
+        nodeTime[nodeCount] = time;
+        nodeCost[nodeCount] = cost;
+        nodeParent[nodeCount] = parent;
+        nodeIndex.put(cell, time, window, nodeCount);
+        return nodeCount++;
+    }
+
+    private static final class GoalField {
+        final int[] distances;
+        int users;    // robots heading for this goal
+
+        GoalField(int[] distances) {
+            this.distances = distances;
+        }
+    }
+
+    // Open-addressing map from (cell, step) to an int; reset() empties it without clearing memory
+    private static final class SpaceTimeTable {
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int[] stamps = new int[1024];
+        private int stamp = 1;
+        private int size;
+
+        void reset(int expected) {
+            size = 0;
+            if (expected * 2 > keys.length) {
+                int capacity = Integer.highestOneBit(expected * 2 - 1) << 1;
+                keys = new long[capacity];
+                values = new int[capacity];
+                stamps = new int[capacity];
+                stamp = 1;
+            } else if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+
+        int get(int cell, int time, int window) {
+            long key = (long) cell * (window + 1) + time;
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; stamps[slot] == stamp; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return NONE;
+        }
+
+        void put(int cell, int time, int window, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            long key = (long) cell * (window + 1) + time;
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (stamps[slot] == stamp && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (stamps[slot] != stamp) {
+                size++;
+            }
+            stamps[slot] = stamp;
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            int[] oldStamps = stamps;
+            int oldStamp = stamp;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            stamps = new int[oldKeys.length * 2];
+            stamp = 1;
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldStamps[i] == oldStamp) {
+                    int slot = hash(oldKeys[i]) & mask;
+                    while (stamps[slot] == stamp) {
+                        slot = (slot + 1) & mask;
+                    }
+                    stamps[slot] = stamp;
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed distance fields towards every target id of a maze. Built with one
+ * multi-source ParallelBfs per id; afterwards the distance to, and the next step towards,
+ * the nearest cell of an id are O(1) lookups from any cell.
+ */
+public class DistanceOracle {
+    public static final int UNREACHABLE = -1;
+
+    private static final char CHAR_UNREACHABLE = Character.MAX_VALUE;
+
+    private final MazeModel maze;
+    // Per target id: distances as char[] while they fit in 16 bits, int[] otherwise; null if the id is absent
+    private final char[][] shortDistances = new char[Long.SIZE][];
+    private final int[][] intDistances = new int[Long.SIZE][];
+    private final long[][] nextDirections = new long[Long.SIZE][]; // 2 bits per cell
+
+    private DistanceOracle(MazeModel maze) {
+        this.maze = maze;
+    }
+
+    public static DistanceOracle build(MazeModel maze) {
+        DistanceOracle oracle = new DistanceOracle(maze);
+        ParallelBfs bfs = new ParallelBfs();
+        int[] distances = new int[maze.getCellCount()];
+        long ids = maze.getTargetIdMask();
+        while (ids != 0) {
+            int id = Long.numberOfTrailingZeros(ids);
+            ids &= ids - 1;
+            oracle.buildField(bfs, id, distances);
+        }
+        return oracle;
+    }
+
+    public MazeModel getMaze() {
+        return maze;
+    }
+
+    // Steps from cell to the nearest cell with the target id, or UNREACHABLE
+    public int distance(int cell, int targetId) {
+        char[] compact = shortDistances[targetId];
+        if (compact != null) {
+            char distance = compact[cell];
+            return distance == CHAR_UNREACHABLE ? UNREACHABLE : distance;
+        }
+        int[] wide = intDistances[targetId];
+        return wide == null ? UNREACHABLE : wide[cell];
+    }
+
+    // Direction of the first step towards the nearest cell with the target id, -1 if there is none
+    public int nextDirection(int cell, int targetId) {
+        int distance = distance(cell, targetId);
+        if (distance <= 0) {
+            return -1;
+        }
+        long[] directions = nextDirections[targetId];
+        return (int) (directions[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+    }
+
+    public int nextCell(int cell, int targetId) {
+        int direction = nextDirection(cell, targetId);
+        return direction < 0 ? -1 : maze.neighbor(cell, direction);
+    }
+
+    // Shortest path from cell to the nearest cell with the target id, empty if unreachable
+    public int[] pathTo(int cell, int targetId) {
+        int distance = distance(cell, targetId);
+        if (distance == UNREACHABLE) {
+            return new int[0];
+        }
+        int[] path = new int[distance + 1];
+        path[0] = cell;
+        for (int i = 1; i <= distance; i++) {
+            cell = nextCell(cell, targetId);
+            path[i] = cell;
+        }
+        return path;
+    }
+
+    private void buildField(ParallelBfs bfs, int targetId, int[] distances) {
+        // Every cell of this id is a source at distance 0
+        int[] sources = new int[maze.getTargetCount()];
+        int count = 0;
+        for (int i = 0; i < maze.getTargetCount(); i++) {
+            if (maze.getTargetId(i) == targetId) {
+                sources[count++] = maze.getTargetCell(i);
+            }
+        }
+        int maxDistance = bfs.distances(maze, Arrays.copyOf(sources, count), distances);
+        long[] directions = bfs.nextDirections(maze, distances);
+
+        nextDirections[targetId] = directions;
+        if (maxDistance < CHAR_UNREACHABLE) {
+            char[] compact = new char[distances.length];
+            for (int cell = 0; cell < distances.length; cell++) {
+                compact[cell] = distances[cell] == UNREACHABLE ? CHAR_UNREACHABLE : (char) distances[cell];
+            }
+            shortDistances[targetId] = compact;
+        } else {
+            intDistances[targetId] = distances.clone();
+        }
+    }
+}
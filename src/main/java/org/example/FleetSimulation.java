@@ -0,0 +1,224 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tick-based simulation of many robots on one MazeModel. Robots are stored as parallel
+ * primitive arrays (row, column, heading) instead of Robot objects; each tick moves every
+ * robot one step by the right-hand rule, checking walls against the model. Robots do not
+ * block each other. Ticks run in fixed chunks of robots: the calling thread and a set of
+ * parked worker threads claim chunks from a shared counter, so a steady-state tick allocates
+ * nothing and the result does not depend on the number of workers.
+ */
+public class FleetSimulation implements AutoCloseable {
+    private static final int CHUNK = 2048;
+
+    private final MazeModel maze;
+    private final Thread[] workers;
+    private int[] rows;
+    private int[] cols;
+    private byte[] headings;   // MazeModel directions
+    private int count;
+    private long tick;
+    private long moves;
+
+    // Chunk hand-out: the tick generation in the high half, the next unclaimed chunk in the low half
+    private final AtomicLong claims = new AtomicLong();
+    private final AtomicInteger doneChunks = new AtomicInteger();
+    private long[] chunkMoves = new long[0];
+    private int chunkCount;
+    private volatile long generation;
+    private volatile Thread waiter;
+    private volatile boolean closed;
+
+    public FleetSimulation(MazeModel maze) {
+        this(maze, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    // Worker threads besides the one calling tick; with 0 every tick runs on the caller
+    public FleetSimulation(MazeModel maze, int workerCount) {
+        if (workerCount < 0) {
+            throw new IllegalArgumentException("Worker count must not be negative: " + workerCount);
+        }
+        this.maze = maze;
+        rows = new int[16];
+        cols = new int[16];
+        headings = new byte[16];
+        workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::work, "fleet-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    public MazeModel getMaze() {
+        return maze;
+    }
+
+    // Adds a robot and returns its id; ids are dense and start at 0
+    public int addRobot(int row, int col, int heading) {
+        if (row < 0 || row >= maze.getRows() || col < 0 || col >= maze.getCols()) {
+            throw new IllegalArgumentException("Robot outside the maze: " + row + "," + col);
+        }
+        if (heading < 0 || heading > 3) {
+            throw new IllegalArgumentException("Unknown heading: " + heading);
+        }
+        if (count == rows.length) {
+            rows = Arrays.copyOf(rows, count * 2);
+            cols = Arrays.copyOf(cols, count * 2);
+            headings = Arrays.copyOf(headings, count * 2);
+        }
+        rows[count] = row;
+        cols[count] = col;
+        headings[count] = (byte) heading;
+        return count++;
+    }
+
+    public int addRobot(Robot robot) {
+        return addRobot(robot.x, robot.y, robot.rotation.ordinal());
+    }
+
+    public int getRobotCount() {
+        return count;
+    }
+
+    public int getRow(int robot) {
+        return rows[robot];
+    }
+
+    public int getCol(int robot) {
+        return cols[robot];
+    }
+
+    public int getHeading(int robot) {
+        return headings[robot];
+    }
+
+    public int getCell(int robot) {
+        return maze.index(rows[robot], cols[robot]);
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    // Steps taken by all robots so far; turning on the spot in a dead end is not a step
+    public long getMoveCount() {
+        return moves;
+    }
+
+    // Advances every robot by one step; call from one thread at a time
+    public void tick() {
+        chunkCount = (count + CHUNK - 1) / CHUNK;
+        if (chunkMoves.length < chunkCount) {
+            chunkMoves = new long[chunkCount];
+        }
+        if (chunkCount <= 1 || workers.length == 0) {
+            for (int c = 0; c < chunkCount; c++) {
+                step(c);
+            }
+        } else {
+            long next = generation + 1;
+            doneChunks.set(0);
+            waiter = Thread.currentThread();
+            claims.set(next << 32);
+            generation = next;
+            for (Thread worker : workers) {
+                LockSupport.unpark(worker);
+            }
+            runChunks(next);
+            while (doneChunks.get() < chunkCount) {
+                LockSupport.park(this);
+            }
+        }
+        for (int c = 0; c < chunkCount; c++) {
+            moves += chunkMoves[c];
+        }
+        tick++;
+    }
+
+    // Runs the given number of ticks and returns the achieved ticks per second
+    public double run(int ticks) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        return ticks * 1e9 / elapsed;
+    }
+
+    // Stops the worker threads
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void work() {
+        long seen = 0;
+        while (!closed) {
+            long current = generation;
+            if (current == seen) {
+                LockSupport.park(this);
+                continue;
+            }
+            seen = current;
+            runChunks(current);
+        }
+    }
+
+    // Claims and steps chunks of the given tick until none are left
+    private void runChunks(long tickGeneration) {
+        while (true) {
+            long claim = claims.get();
+            int chunk = (int) claim;
+            if (claim >>> 32 != tickGeneration || chunk >= chunkCount) {
+                return;
+            }
+            if (claims.compareAndSet(claim, claim + 1)) {
+                step(chunk);
+                if (doneChunks.incrementAndGet() == chunkCount) {
+                    LockSupport.unpark(waiter);
+                }
+            }
+        }
+    }
+
+    // Right-hand rule: turn right if open, else go straight, else turn left, else turn around
+    private void step(int chunk) {
+        int from = chunk * CHUNK;
+        int to = Math.min(count, from + CHUNK);
+        MazeModel maze = this.maze;
+        int mazeCols = maze.getCols();
+        int[] rows = this.rows;
+        int[] cols = this.cols;
+        byte[] headings = this.headings;
+        long moved = 0;
+        for (int i = from; i < to; i++) {
+            int cell = rows[i] * mazeCols + cols[i];
+            int heading = headings[i];
+            int direction = (heading + 1) & 3;
+            if (!maze.isOpen(cell, direction)) {
+                direction = heading;
+                if (!maze.isOpen(cell, direction)) {
+                    direction = (heading + 3) & 3;
+                    if (!maze.isOpen(cell, direction)) {
+                        headings[i] = (byte) MazeModel.opposite(heading);
+                        continue;
+                    }
+                }
+            }
+            rows[i] += MazeModel.rowDelta(direction);
+            cols[i] += MazeModel.colDelta(direction);
+            headings[i] = (byte) direction;
+            moved++;
+        }
+        chunkMoves[chunk] = moved;
+    }
+}
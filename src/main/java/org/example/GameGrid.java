@@ -2,28 +2,357 @@ package org.example;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+// Swing view over a MazeModel: either one GridCell per maze cell, linked along open passages,
+// or a pannable, zoomable window onto the maze painted by this component (see MazeRenderer)
 public class GameGrid extends JPanel {
+    public enum RenderMode {
+        // One GridCell label per maze cell in a GridLayout; fine up to about 100x100
+        CELLS,
+        // One component painting only the visible cells; handles millions of cells
+        CANVAS
+    }
+
+    // What the canvas view keeps in sight when the path or the robot changes
+    public enum Follow {
+        NONE,
+        ROBOT,
+        PATH
+    }
+
+    // Colour used to draw each target id
+    public static final Color[] TARGET_COLORS = {Color.ORANGE, Color.BLUE, Color.GREEN};
+    public static final Color PATH_COLOR = new Color(255, 255, 200);
+    public static final Color REVISIT_COLOR = Color.YELLOW;
+    // Canvas mode sizes itself like this; the view shows whatever part of the maze fits
+    private static final Dimension CANVAS_PREFERRED_SIZE = new Dimension(800, 600);
+
+    private final MazeModel model;
+    private final RenderMode renderMode;
     private int rows;
     private int columns;
     private GridCell[][] gameCells;
 
-    public GameGrid(int rows, int columns) {
+    private MazeRenderer renderer;
+    private Follow follow = Follow.NONE;
+    private int[] painted = new int[64];    // canvas cells coloured since the last clearPath, maybe repeated
+    private int paintedCount;
+
+    // Cell view, as before the canvas mode existed; large mazes should ask for CANVAS
+    public GameGrid(MazeModel model) {
+        this(model, RenderMode.CELLS);
+    }
+
+    public GameGrid(MazeModel model, RenderMode renderMode) {
+        this.model = model;
+        this.renderMode = renderMode;
+        this.rows = model.getRows();
+        this.columns = model.getCols();
+        if (renderMode == RenderMode.CANVAS) {
+            renderer = new MazeRenderer(model, this);
+            int white = Color.WHITE.getRGB();
+            for (int index = 0; index < model.getCellCount(); index++) {
+                int target = model.targetAt(index);
+                renderer.setColor(index, target == MazeModel.NO_TARGET ? white : targetColor(target).getRGB());
+            }
+            setBackground(Color.LIGHT_GRAY);
+            installNavigation();
+            return;
+        }
         this.setLayout(new GridLayout(rows, columns, 2, 2));
-        this.rows = rows;
-        this.columns = columns;
+
+        gameCells = new GridCell[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                gameCells[i][j] = new GridCell(this, i, j);
+            }
+        }
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                linkCell(i, j);
+                add(gameCells[i][j]);
+            }
+        }
+    }
+
+    // Copies passages and target colour of one cell from the model onto its GridCell
+    private void linkCell(int i, int j) {
+        GridCell cell = gameCells[i][j];
+        int index = model.index(i, j);
+        cell.up = model.isOpen(index, MazeModel.UP) ? gameCells[i - 1][j] : null;
+        cell.down = model.isOpen(index, MazeModel.DOWN) ? gameCells[i + 1][j] : null;
+        cell.left = model.isOpen(index, MazeModel.LEFT) ? gameCells[i][j - 1] : null;
+        cell.right = model.isOpen(index, MazeModel.RIGHT) ? gameCells[i][j + 1] : null;
+        cell.updateBorder();
+
+        int target = model.targetAt(index);
+        if (target != MazeModel.NO_TARGET) {
+            cell.setCellColor(targetColor(target));
+        } else if (isTargetColor(cell.getCellColor())) {
+            cell.setCellColor(Color.WHITE);
+        }
+    }
+
+    // Re-reads a cell and its neighbours from the model after its walls or target changed
+    public void refreshCell(int index) {
+        if (renderMode == RenderMode.CANVAS) {
+            int target = model.targetAt(index);
+            if (target != MazeModel.NO_TARGET) {
+                renderer.setColor(index, targetColor(target).getRGB());
+            } else if (isTargetColor(new Color(renderer.getColor(index)))) {
+                renderer.setColor(index, Color.WHITE.getRGB());
+            }
+            renderer.wallsChanged(index);
+            repaintCell(index);
+            return;
+        }
+        int row = model.row(index);
+        int col = model.col(index);
+        linkCell(row, col);
+        for (int direction = 0; direction < 4; direction++) {
+            int neighbor = model.neighbor(index, direction);
+            if (neighbor >= 0) {
+                linkCell(model.row(neighbor), model.col(neighbor));
+            }
+        }
+    }
+
+    // Resets every cell that is not a target back to white. The canvas only visits the cells
+    // coloured since the last call, so clearing a path costs its length, not the maze size.
+    public void clearPath() {
+        if (renderMode == RenderMode.CANVAS) {
+            int white = Color.WHITE.getRGB();
+            int minRow = rows;
+            int maxRow = -1;
+            int minCol = columns;
+            int maxCol = -1;
+            for (int i = 0; i < paintedCount; i++) {
+                int index = painted[i];
+                if (renderer.getColor(index) == white || model.isTarget(index)) {
+                    continue;
+                }
+                renderer.setColor(index, white);
+                minRow = Math.min(minRow, model.row(index));
+                maxRow = Math.max(maxRow, model.row(index));
+                minCol = Math.min(minCol, model.col(index));
+                maxCol = Math.max(maxCol, model.col(index));
+            }
+            paintedCount = 0;
+            if (maxRow >= 0) {
+                renderer.repaintCells(minRow, minCol, maxRow, maxCol);
+            }
+            return;
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                GridCell cell = gameCells[i][j];
+                if (!cell.isTarget() && !Color.WHITE.equals(cell.getCellColor())) {
+                    cell.setCellColor(Color.WHITE);
+                }
+            }
+        }
+    }
+
+    private static boolean isTargetColor(Color color) {
+        for (Color targetColor : TARGET_COLORS) {
+            if (targetColor.equals(color)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static Color targetColor(int targetId) {
+        return TARGET_COLORS[targetId % TARGET_COLORS.length];
+    }
+
+    // Colours the whole walk at once; PathAnimator reveals it gradually instead
+    public void showPath(int[] path) {
+        if (path.length == 0) {
+            LogBuffer.getDefault().append(LogBuffer.Level.INFO, "No valid path found!");
+            return;
+        }
+        followPath(path);
+        paintPath(path, 0, path.length, new long[(model.getCellCount() + 63) >>> 6]);
+    }
+
+    // Colours path[from..to): light yellow on the first visit, yellow when a cell is passed again;
+    // targets keep their colour. visited carries the cells seen so far between calls.
+    public void paintPath(int[] path, int from, int to, long[] visited) {
+        int first = PATH_COLOR.getRGB();
+        int again = REVISIT_COLOR.getRGB();
+        int minRow = rows;
+        int maxRow = -1;
+        int minCol = columns;
+        int maxCol = -1;
+        for (int i = from; i < to; i++) {
+            int index = path[i];
+            boolean revisit = (visited[index >>> 6] & (1L << index)) != 0;
+            visited[index >>> 6] |= 1L << index;
+            if (model.isTarget(index)) {
+                continue;
+            }
+            if (renderMode == RenderMode.CELLS) {
+                getCell(index).setCellColor(revisit ? REVISIT_COLOR : PATH_COLOR);
+                continue;
+            }
+            renderer.setColor(index, revisit ? again : first);
+            if (!revisit) {
+                markPainted(index);
+            }
+            minRow = Math.min(minRow, model.row(index));
+            maxRow = Math.max(maxRow, model.row(index));
+            minCol = Math.min(minCol, model.col(index));
+            maxCol = Math.max(maxCol, model.col(index));
+        }
+        if (maxRow >= 0) {
+            renderer.repaintCells(minRow, minCol, maxRow, maxCol);
+        }
+    }
+
+    // Brings the whole walk into view when following the path
+    public void followPath(int[] path) {
+        if (follow != Follow.PATH || renderMode != RenderMode.CANVAS || path.length == 0) {
+            return;
+        }
+        int top = rows;
+        int bottom = -1;
+        int left = columns;
+        int right = -1;
+        for (int index : path) {
+            top = Math.min(top, model.row(index));
+            bottom = Math.max(bottom, model.row(index));
+            left = Math.min(left, model.col(index));
+            right = Math.max(right, model.col(index));
+        }
+        renderer.showCells(top, left, bottom, right, false);
+    }
+
+    // Marks the robot on the canvas; -1 hides it
+    public void setRobot(int index) {
+        if (renderMode == RenderMode.CANVAS) {
+            renderer.setRobot(index);
+            if (follow == Follow.ROBOT && index >= 0) {
+                renderer.centerOn(index);
+            }
+        }
+    }
+
+    public Follow getFollow() {
+        return follow;
+    }
+
+    public void setFollow(Follow follow) {
+        this.follow = follow;
+        if (follow == Follow.ROBOT && renderMode == RenderMode.CANVAS && renderer.getRobot() >= 0) {
+            renderer.centerOn(renderer.getRobot());
+        }
+    }
+
+    // Zooms the canvas so the whole maze is visible
+    public void fitToView() {
+        if (renderMode == RenderMode.CANVAS) {
+            renderer.fit();
+        }
+    }
+
+    // Wheel zooms around the pointer, dragging pans
+    private void installNavigation() {
+        MouseAdapter navigation = new MouseAdapter() {
+            private Point last;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                last = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (last != null) {
+                    renderer.pan(e.getX() - last.x, e.getY() - last.y);
+                    last = e.getPoint();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                renderer.zoom(-e.getWheelRotation(), e.getX(), e.getY());
+            }
+        };
+        addMouseListener(navigation);
+        addMouseMotionListener(navigation);
+        addMouseWheelListener(navigation);
+    }
+
+    public MazeModel getModel() {
+        return model;
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public Color getCellColor(int index) {
+        return renderMode == RenderMode.CANVAS ? new Color(renderer.getColor(index)) : getCell(index).getCellColor();
+    }
+
+    public void setCellColor(int index, Color color) {
+        if (renderMode == RenderMode.CELLS) {
+            getCell(index).setCellColor(color);
+            return;
+        }
+        if (renderer.getColor(index) != color.getRGB()) {
+            renderer.setColor(index, color.getRGB());
+            markPainted(index);
+            repaintCell(index);
+        }
+    }
+
+    private void markPainted(int index) {
+        if (paintedCount == painted.length) {
+            painted = Arrays.copyOf(painted, paintedCount * 2);
+        }
+        painted[paintedCount++] = index;
     }
 
     public void setGameCells(GridCell[][] gameCells) {
         this.gameCells = gameCells;
     }
 
+    // The cell components of a CELLS view; null for a canvas, which has none
     public GridCell[][] getGameCells() {
         return gameCells;
     }
 
+    // Only a CELLS view has cell components; a canvas is addressed by cell index instead
+    public GridCell getCell(int index) {
+        if (renderMode == RenderMode.CANVAS) {
+            throw new IllegalStateException("A canvas view has no GridCell components; use cell indices");
+        }
+        return gameCells[model.row(index)][model.col(index)];
+    }
+
+    // Maps a path of cell indices back onto the cells of a CELLS view
+    public List<GridCell> toCells(int[] path) {
+        List<GridCell> cells = new ArrayList<>(path.length);
+        for (int index : path) {
+            cells.add(getCell(index));
+        }
+        return cells;
+    }
+
     @Override
     public Dimension getPreferredSize() {
+        if (renderMode == RenderMode.CANVAS) {
+            return CANVAS_PREFERRED_SIZE;
+        }
         int width = getParent().getWidth();
         int cellHeight = width / columns;
         return new Dimension(width, cellHeight * rows);
@@ -32,6 +361,18 @@ public class GameGrid extends JPanel {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        // Add any custom painting here if needed
+        if (renderMode == RenderMode.CELLS) {
+            return;
+        }
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            renderer.paint(g2);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private void repaintCell(int index) {
+        renderer.repaintCells(model.row(index), model.col(index), model.row(index), model.col(index));
     }
 }
@@ -13,8 +13,15 @@ public class GridCell extends JLabel {
     public Color cellColor = Color.WHITE;
     private final Color BORDER_COLOR = Color.RED;
     private static final int BORDER_WIDTH = 1;
+    private final GameGrid grid;
 
     public GridCell(int x, int y) {
+        this(null, x, y);
+    }
+
+    // Cell belonging to a GameGrid view; x is the row and y the column in its MazeModel
+    public GridCell(GameGrid grid, int x, int y) {
+        this.grid = grid;
         this.x = x;
         this.y = y;
         setText("");
@@ -35,6 +42,19 @@ public class GridCell extends JLabel {
         return cellColor;
     }
 
+    public GameGrid getGrid() {
+        return grid;
+    }
+
+    // Index of this cell in the underlying MazeModel
+    public int getIndex() {
+        return grid.getModel().index(x, y);
+    }
+
+    public boolean isTarget() {
+        return grid != null && grid.getModel().isTarget(getIndex());
+    }
+
     public void updateBorder() {
         int leftBorder = left == null ? 1 : 0;
         int rightBorder = right == null ? 1 : 0;
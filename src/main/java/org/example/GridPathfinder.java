@@ -1,100 +1,130 @@
 package org.example;
 
-import java.awt.Color;
 import java.util.*;
 
 public class GridPathfinder {
-    // Helper class to store path information during BFS
-    private static class PathNode {
-        GridCell cell;
-        List<GridCell> pathSoFar;
-        Set<Color> colorsFound;
-
-        PathNode(GridCell cell, List<GridCell> pathSoFar, Set<Color> colorsFound) {
-            this.cell = cell;
-            this.pathSoFar = new ArrayList<>(pathSoFar);
-            this.pathSoFar.add(cell);
-            this.colorsFound = new HashSet<>(colorsFound);
-            if (isTargetColor(cell.getCellColor())) {
-                this.colorsFound.add(cell.getCellColor());
-            }
+    public static List<GridCell> findShortestPathToColors(GridCell start) {
+        GameGrid grid = start.getGrid();
+        if (grid == null) {
+            throw new IllegalArgumentException("Cell " + start.x + "," + start.y + " is not part of a maze");
         }
+        return grid.toCells(findShortestPathToColors(grid.getModel(), start.getIndex()));
+    }
 
-        static boolean isTargetColor(Color color) {
-            return color.equals(Color.ORANGE) ||
-                    color.equals(Color.BLUE) ||
-                    color.equals(Color.GREEN);
-        }
+    // Level-synchronous BFS over (cell, colour mask) states packed as cell << colourBits | mask.
+    // Visited states live in a bitset and parents in an int[] of the same size, so memory is
+    // bounded by cells * 2^colours and the first time the full mask shows up is a shortest path.
+    public static int[] findShortestPathToColors(MazeModel maze, int start) {
+        long startNanos = Metrics.start();
+        SolveEvent event = Metrics.beginSolve();
+        long[] probe = new long[4]; // expanded, generated, duplicates, peak frontier
+        int[] path = breadthFirst(maze, start, probe);
+        Metrics.GRID.record(event, startNanos, maze.getCellCount(), path.length, probe[0], probe[1], probe[2], 0, probe[3]);
+        return path;
+    }
 
-        boolean hasFoundAllColors() {
-            return colorsFound.size() == 3;
+    private static int[] breadthFirst(MazeModel maze, int start, long[] probe) {
+        long idMask = maze.getTargetIdMask();
+        int colorBits = Long.bitCount(idMask);
+        long stateCount = (long) maze.getCellCount() << colorBits;
+        if (stateCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many target colours (" + colorBits
+                    + ") for a maze of " + maze.getCellCount() + " cells");
+        }
+        int fullMask = (1 << colorBits) - 1;
+        int[] bitOfId = new int[Long.SIZE];
+        for (int id = 0; id < Long.SIZE; id++) {
+            bitOfId[id] = Long.bitCount(idMask & ((1L << id) - 1));
         }
-    }
 
-    public static List<GridCell> findShortestPathToColors(GridCell start) {
-        Queue<PathNode> queue = new LinkedList<>();
-        Set<GridCell> visited = new HashSet<>();
-        Map<String, Set<Color>> visitedStates = new HashMap<>();
+        long[] visited = new long[(int) ((stateCount + 63) >>> 6)];
+        int[] parents = new int[(int) stateCount];
+        int[] queue = new int[1024];  // ring buffer, capacity is a power of two
+        int head = 0;
+        int size = 0;
+        int[] neighbors = new int[4];
 
         // Initialize the search with the starting cell
-        queue.add(new PathNode(start, new ArrayList<>(), new HashSet<>()));
-
-        while (!queue.isEmpty()) {
-            PathNode current = queue.poll();
-            GridCell currentCell = current.cell;
-
-            // Create a unique state key for this cell and its collected colors
-            String stateKey = currentCell.x + "," + currentCell.y;
-
-            // Skip if we've been here before with the same or better color collection
-            Set<Color> previousColors = visitedStates.get(stateKey);
-            if (previousColors != null && previousColors.containsAll(current.colorsFound)) {
-                continue;
+        int startTarget = maze.targetAt(start);
+        int startState = start << colorBits | (startTarget == MazeModel.NO_TARGET ? 0 : 1 << bitOfId[startTarget]);
+        if ((startState & fullMask) == fullMask) {
+            return new int[]{start};
+        }
+        visited[startState >>> 6] |= 1L << startState;
+        parents[startState] = -1;
+        queue[0] = startState;
+        size = 1;
+
+        for (int level = 1; size > 0; level++) {
+            int levelSize = size;
+            probe[3] = Math.max(probe[3], size);
+            for (int n = 0; n < levelSize; n++) {
+                if ((n & Cancellation.CHECK_MASK) == Cancellation.CHECK_MASK) {
+                    Cancellation.checkpoint();
+                }
+                int state = queue[head];
+                head = (head + 1) & (queue.length - 1);
+                size--;
+                int mask = state & fullMask;
+
+                // Explore neighbors
+                int count = maze.openNeighbors(state >>> colorBits, neighbors);
+                probe[0]++;
+                probe[1] += count;
+                for (int i = 0; i < count; i++) {
+                    int neighbor = neighbors[i];
+                    int target = maze.targetAt(neighbor);
+                    int neighborMask = target == MazeModel.NO_TARGET ? mask : mask | 1 << bitOfId[target];
+                    int next = neighbor << colorBits | neighborMask;
+                    if ((visited[next >>> 6] & (1L << next)) != 0) {
+                        probe[2]++;
+                        continue;
+                    }
+                    visited[next >>> 6] |= 1L << next;
+                    parents[next] = state;
+
+                    // Check if we've found all colors; BFS reaches it first on a shortest path
+                    if (neighborMask == fullMask) {
+                        return backtrack(parents, next, level, colorBits);
+                    }
+
+                    if (size == queue.length) {
+                        queue = grow(queue, head);
+                        head = 0;
+                    }
+                    queue[(head + size) & (queue.length - 1)] = next;
+                    size++;
+                }
             }
+        }
 
-            // Update the visited states
-            visitedStates.put(stateKey, current.colorsFound);
-
-            // Check if we've found all colors
-            if (current.hasFoundAllColors()) {
-                return current.pathSoFar;
-            }
+        return new int[0]; // Return empty path if no path is found
+    }
 
-            // Explore neighbors
-            for (GridCell neighbor : currentCell.getNeighbors()) {
-                if (!visited.contains(neighbor)) {
-                    queue.add(new PathNode(neighbor, current.pathSoFar, current.colorsFound));
-                } else {
+    // Edges of the contracted graph have corridor lengths as weights, so a plain BFS is no longer
+    // exact there; this runs the uniform-cost variant of the shared search instead
+    public static int[] findShortestPathToColors(JunctionGraph graph) {
+        return AStarPathfinder.search(graph, graph.getStartNode(), false);
+    }
 
-                }
-            }
+    private static int[] grow(int[] queue, int head) {
+        int[] larger = new int[queue.length * 2];
+        System.arraycopy(queue, head, larger, 0, queue.length - head);
+        System.arraycopy(queue, 0, larger, queue.length - head, head);
+        return larger;
+    }
 
-            visited.add(currentCell);
+    private static int[] backtrack(int[] parents, int state, int length, int colorBits) {
+        int[] path = new int[length + 1];
+        for (int i = length; i >= 0; i--) {
+            path[i] = state >>> colorBits;
+            state = parents[state];
         }
-
-        return new ArrayList<>(); // Return empty list if no path is found
+        return path;
     }
 
-    // Helper method to visualize the path by setting background colors
+    // Helper method to visualize the path by setting background colors, frame by frame on the EDT
     public static void visualizePath(List<GridCell> path) {
-        if (path.isEmpty()) {
-            System.out.println("No valid path found!");
-            return;
-        }
-
-        // Store original colors
-        // Map<GridCell, Color> originalColors = new HashMap<>();
-        for (GridCell cell : path) {
-            // originalColors.put(cell, cell.getCellColor());
-            // Skip coloring cells that are already target colors
-            if (!PathNode.isTargetColor(cell.getCellColor())) {
-                cell.setCellColor(new Color(255, 255, 200)); // Light yellow for path
-            }
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
+        PathAnimator.animate(path);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,302 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical search (HPA*) for very large mazes. The grid is split into square clusters;
+ * the abstract graph keeps the cells with a passage across a cluster border, the target
+ * cells and the start. Inside a cluster these are linked by their in-cluster distances, across
+ * a border by single steps. Because every border passage is kept, distances on the abstract
+ * graph equal the maze distances, so the A* engine finds the same walk as the flat search and
+ * only refines it inside the clusters it passes through.
+ *
+ * The abstraction is cached; report changed walls and targets so only the affected clusters
+ * are rebuilt before the next search.
+ */
+public class HierarchicalPathfinder implements SearchGraph {
+    public static final int DEFAULT_CLUSTER_SIZE = 32;
+
+    private final MazeModel maze;
+    private final int clusterSize;
+    private final int clusterCols;
+    private final int[][] clusterNodes;      // sorted cells of the abstract nodes in each cluster
+    private final int[][] clusterEdgeStart;  // edges of local node i are [start[i], start[i + 1])
+    private final int[][] clusterEdgeTargets; // local index of the other node
+    private final int[][] clusterEdgeWeights;
+    private final boolean[] dirty;
+    private int dirtyCount;
+    private int maxDegree = 4;
+    private int start = -1;
+
+    // Scratch space for BFS inside one cluster, indexed by position within the cluster
+    private final int[] localStamps;
+    private final int[] localDistances;
+    private final byte[] localDirections;
+    private final int[] localQueue;
+    private int pass;
+
+    public HierarchicalPathfinder(MazeModel maze) {
+        this(maze, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public HierarchicalPathfinder(MazeModel maze, int clusterSize) {
+        if (clusterSize < 1 || clusterSize > 4096) {
+            throw new IllegalArgumentException("Cluster size out of range: " + clusterSize);
+        }
+        this.maze = maze;
+        this.clusterSize = clusterSize;
+        this.clusterCols = (maze.getCols() + clusterSize - 1) / clusterSize;
+        int clusterCount = clusterCols * ((maze.getRows() + clusterSize - 1) / clusterSize);
+        clusterNodes = new int[clusterCount][];
+        clusterEdgeStart = new int[clusterCount][];
+        clusterEdgeTargets = new int[clusterCount][];
+        clusterEdgeWeights = new int[clusterCount][];
+        dirty = new boolean[clusterCount];
+        Arrays.fill(dirty, true);
+        dirtyCount = clusterCount;
+
+        int area = clusterSize * clusterSize;
+        localStamps = new int[area];
+        localDistances = new int[area];
+        localDirections = new byte[area];
+        localQueue = new int[area];
+    }
+
+    // Shortest walk from start through one cell of every target id; empty if there is none
+    public int[] findOptimalPath(int start) {
+        if (start != this.start) {
+            if (this.start >= 0) {
+                markDirty(clusterOf(this.start));
+            }
+            markDirty(clusterOf(start));
+            this.start = start;
+        }
+        refresh();
+        return AStarPathfinder.search(this, start, true);
+    }
+
+    // The wall between cell and its neighbour in direction was opened or closed
+    public void wallChanged(int cell, int direction) {
+        markDirty(clusterOf(cell));
+        int other = maze.neighbor(cell, direction);
+        if (other >= 0) {
+            markDirty(clusterOf(other));
+        }
+    }
+
+    // A target was placed on or removed from cell
+    public void targetChanged(int cell) {
+        markDirty(clusterOf(cell));
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    public int getClusterCount() {
+        return dirty.length;
+    }
+
+    public int getDirtyClusterCount() {
+        return dirtyCount;
+    }
+
+    // Rebuilds every cluster touched since the last search; interrupting the thread cancels
+    // the rebuild between clusters and leaves the rest dirty
+    public void refresh() {
+        for (int cluster = 0; dirtyCount > 0 && cluster < dirty.length; cluster++) {
+            if (dirty[cluster]) {
+                Cancellation.checkpoint();
+                rebuildCluster(cluster);
+                dirty[cluster] = false;
+                dirtyCount--;
+            }
+        }
+    }
+
+    private void markDirty(int cluster) {
+        if (!dirty[cluster]) {
+            dirty[cluster] = true;
+            dirtyCount++;
+        }
+    }
+
+    int clusterOf(int cell) {
+        return (maze.row(cell) / clusterSize) * clusterCols + maze.col(cell) / clusterSize;
+    }
+
+    private void rebuildCluster(int cluster) {
+        int rowStart = (cluster / clusterCols) * clusterSize;
+        int colStart = (cluster % clusterCols) * clusterSize;
+        int rowEnd = Math.min(maze.getRows(), rowStart + clusterSize);
+        int colEnd = Math.min(maze.getCols(), colStart + clusterSize);
+
+        // Row-major order keeps the node cells sorted
+        int[] nodes = new int[16];
+        int nodeCount = 0;
+        for (int row = rowStart; row < rowEnd; row++) {
+            for (int col = colStart; col < colEnd; col++) {
+                int cell = maze.index(row, col);
+                if (isNode(cell, cluster)) {
+                    if (nodeCount == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, nodeCount * 2);
+                    }
+                    nodes[nodeCount++] = cell;
+                }
+            }
+        }
+        nodes = Arrays.copyOf(nodes, nodeCount);
+
+        // One BFS inside the cluster per node gives its distances to the other nodes
+        int[] edgeStart = new int[nodeCount + 1];
+        int[] edgeTargets = new int[nodeCount * 2];
+        int[] edgeWeights = new int[edgeTargets.length];
+        int edgeCount = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            edgeStart[i] = edgeCount;
+            clusterBfs(nodes[i], cluster, -1);
+            for (int j = 0; j < nodeCount; j++) {
+                int local = localIndex(nodes[j], cluster);
+                if (j == i || localStamps[local] != pass) {
+                    continue;
+                }
+                if (edgeCount == edgeTargets.length) {
+                    edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+                    edgeWeights = Arrays.copyOf(edgeWeights, edgeCount * 2);
+                }
+                edgeTargets[edgeCount] = j;
+                edgeWeights[edgeCount] = localDistances[local];
+                edgeCount++;
+            }
+            maxDegree = Math.max(maxDegree, edgeCount - edgeStart[i] + 4);
+        }
+        edgeStart[nodeCount] = edgeCount;
+
+        clusterNodes[cluster] = nodes;
+        clusterEdgeStart[cluster] = edgeStart;
+        clusterEdgeTargets[cluster] = Arrays.copyOf(edgeTargets, edgeCount);
+        clusterEdgeWeights[cluster] = Arrays.copyOf(edgeWeights, edgeCount);
+    }
+
+    private boolean isNode(int cell, int cluster) {
+        if (cell == start || maze.isTarget(cell)) {
+            return true;
+        }
+        for (int direction = 0; direction < 4; direction++) {
+            if (maze.isOpen(cell, direction) && clusterOf(maze.neighbor(cell, direction)) != cluster) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int localIndex(int cell, int cluster) {
+        int row = maze.row(cell) - (cluster / clusterCols) * clusterSize;
+        int col = maze.col(cell) - (cluster % clusterCols) * clusterSize;
+        return row * clusterSize + col;
+    }
+
+    // BFS from source that never leaves the cluster and stops early once goal is reached;
+    // each reached cell records the direction back towards the source
+    private void clusterBfs(int source, int cluster, int goal) {
+        pass++;
+        int head = 0;
+        int tail = 0;
+        localQueue[tail++] = source;
+        int sourceLocal = localIndex(source, cluster);
+        localStamps[sourceLocal] = pass;
+        localDistances[sourceLocal] = 0;
+
+        while (head < tail) {
+            int cell = localQueue[head++];
+            if (cell == goal) {
+                return;
+            }
+            int distance = localDistances[localIndex(cell, cluster)] + 1;
+            for (int direction = 0; direction < 4; direction++) {
+                if (!maze.isOpen(cell, direction)) {
+                    continue;
+                }
+                int neighbor = maze.neighbor(cell, direction);
+                if (clusterOf(neighbor) != cluster) {
+                    continue;
+                }
+                int local = localIndex(neighbor, cluster);
+                if (localStamps[local] != pass) {
+                    localStamps[local] = pass;
+                    localDistances[local] = distance;
+                    localDirections[local] = (byte) MazeModel.opposite(direction);
+                    localQueue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    @Override
+    public MazeModel getMaze() {
+        return maze;
+    }
+
+    // Nodes are identified by their cell, so node ids are sparse over the whole maze
+    @Override
+    public int getNodeCount() {
+        return maze.getCellCount();
+    }
+
+    @Override
+    public int cellOf(int node) {
+        return node;
+    }
+
+    @Override
+    public int nodeOf(int cell) {
+        return Arrays.binarySearch(clusterNodes[clusterOf(cell)], cell) >= 0 ? cell : -1;
+    }
+
+    @Override
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    @Override
+    public int edges(int node, int[] targets, int[] weights) {
+        int cluster = clusterOf(node);
+        int[] nodes = clusterNodes[cluster];
+        int local = Arrays.binarySearch(nodes, node);
+        int[] edgeStart = clusterEdgeStart[cluster];
+        int[] edgeTargets = clusterEdgeTargets[cluster];
+        int[] edgeWeights = clusterEdgeWeights[cluster];
+
+        int count = 0;
+        for (int e = edgeStart[local]; e < edgeStart[local + 1]; e++) {
+            targets[count] = nodes[edgeTargets[e]];
+            weights[count++] = edgeWeights[e];
+        }
+        for (int direction = 0; direction < 4; direction++) {
+            if (maze.isOpen(node, direction)) {
+                int neighbor = maze.neighbor(node, direction);
+                if (clusterOf(neighbor) != cluster) {
+                    targets[count] = neighbor;
+                    weights[count++] = 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Border crossings are single steps; in-cluster edges are refined with a BFS inside that cluster
+    @Override
+    public void appendEdge(int from, int to, int weight, int[] path, int offset) {
+        int cluster = clusterOf(from);
+        if (clusterOf(to) != cluster) {
+            path[offset] = to;
+            return;
+        }
+        clusterBfs(to, cluster, from);
+        int cell = from;
+        for (int step = 0; step < weight; step++) {
+            cell = maze.neighbor(cell, localDirections[localIndex(cell, cluster)]);
+            path[offset + step] = cell;
+        }
+    }
+}
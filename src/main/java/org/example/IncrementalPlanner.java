@@ -0,0 +1,311 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Replanner that keeps its search state between maze changes. Every target cell owns a
+ * distance field maintained LPA*-style (g and rhs values, with a queue of inconsistent
+ * cells), so opening or closing a wall, or moving a target, only repairs the cells whose
+ * distance actually changes. Moving the robot needs no repair at all: the tour is solved
+ * again from the fields with the same Held-Karp DP as RoutePlanner.
+ *
+ * A field costs two ints per cell and target, so mazes above HIERARCHICAL_CELLS cells keep a
+ * HierarchicalPathfinder instead: changes only mark the clusters around them dirty, and the
+ * next replan rebuilds those clusters and searches the abstract graph.
+ *
+ * All methods are synchronized, updates may arrive from a different thread than replans.
+ */
+public class IncrementalPlanner implements MazeEditor {
+    // Above this many cells (-Dmazer.hierarchicalCells) the planner keeps a cluster abstraction
+    public static final int HIERARCHICAL_CELLS = Integer.getInteger("mazer.hierarchicalCells", 1 << 21);
+
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private final MazeModel maze;
+    private final HierarchicalPathfinder hierarchy; // null when planning on distance fields
+    private final IntMinHeap queue = new IntMinHeap(1024);
+    private final int[] neighbors = new int[4];
+    private final int[] expanded = new int[4];
+    private int robot;
+    private int[] sources = new int[0];   // target cell of each field
+    private int[][] gValues = new int[0][];
+    private int[][] rhsValues = new int[0][];
+    private long lastRepairCount;
+    private boolean building;
+
+    public IncrementalPlanner(MazeModel maze, int robot) {
+        this(maze, robot, maze.getCellCount() > HIERARCHICAL_CELLS);
+    }
+
+    // Building the fields or clusters can be cancelled by interrupting the thread; later repairs run to completion
+    public IncrementalPlanner(MazeModel maze, int robot, boolean hierarchical) {
+        this.maze = maze;
+        this.robot = robot;
+        if (hierarchical) {
+            hierarchy = new HierarchicalPathfinder(maze);
+            hierarchy.refresh();
+            return;
+        }
+        hierarchy = null;
+        building = true;
+        for (int i = 0; i < maze.getTargetCount(); i++) {
+            addField(maze.getTargetCell(i));
+        }
+        building = false;
+    }
+
+    public MazeModel getMaze() {
+        return maze;
+    }
+
+    public synchronized int getRobot() {
+        return robot;
+    }
+
+    public boolean isHierarchical() {
+        return hierarchy != null;
+    }
+
+    // Number of cells whose distance was repaired by the last update; in hierarchical mode the
+    // number of clusters waiting for a rebuild by the next replan
+    public synchronized long getLastRepairCount() {
+        return lastRepairCount;
+    }
+
+    @Override
+    public synchronized void setRobot(int cell) {
+        robot = cell;
+        lastRepairCount = 0;
+    }
+
+    // Opens or closes a wall and repairs every field around it
+    @Override
+    public synchronized void setWall(int cell, int direction, boolean open) {
+        if (maze.isOpen(cell, direction) == open) {
+            lastRepairCount = 0;
+            return;
+        }
+        maze.setOpen(cell, direction, open);
+        if (hierarchy != null) {
+            hierarchy.wallChanged(cell, direction);
+            lastRepairCount = hierarchy.getDirtyClusterCount();
+            return;
+        }
+        int other = maze.neighbor(cell, direction);
+        lastRepairCount = 0;
+        for (int field = 0; field < sources.length; field++) {
+            updateCell(field, cell);
+            updateCell(field, other);
+            lastRepairCount += repair(field);
+        }
+    }
+
+    // Moves the target on one cell to another; only the field of that target is repaired
+    @Override
+    public synchronized void moveTarget(int from, int to) {
+        int targetId = maze.targetAt(from);
+        if (targetId == MazeModel.NO_TARGET) {
+            throw new IllegalArgumentException("No target on cell " + from);
+        }
+        if (from == to) {
+            lastRepairCount = 0;
+            return;
+        }
+        if (hierarchy != null) {
+            maze.clearTarget(from);
+            maze.setTarget(to, targetId);
+            hierarchy.targetChanged(from);
+            hierarchy.targetChanged(to);
+            lastRepairCount = hierarchy.getDirtyClusterCount();
+            return;
+        }
+        int field = fieldOf(from);
+        maze.clearTarget(from);
+        if (maze.isTarget(to)) {
+            removeField(fieldOf(to));
+            field = fieldOf(from);
+        }
+        maze.setTarget(to, targetId);
+        sources[field] = to;
+        updateCell(field, from);
+        updateCell(field, to);
+        lastRepairCount = repair(field);
+    }
+
+    @Override
+    public synchronized void addTarget(int cell, int targetId) {
+        boolean existing = maze.isTarget(cell);
+        maze.setTarget(cell, targetId);
+        if (hierarchy != null) {
+            hierarchy.targetChanged(cell);
+            lastRepairCount = hierarchy.getDirtyClusterCount();
+            return;
+        }
+        lastRepairCount = existing ? 0 : addField(cell);
+    }
+
+    @Override
+    public synchronized void removeTarget(int cell) {
+        if (maze.isTarget(cell)) {
+            maze.clearTarget(cell);
+            if (hierarchy != null) {
+                hierarchy.targetChanged(cell);
+            } else {
+                removeField(fieldOf(cell));
+            }
+        }
+        lastRepairCount = hierarchy != null ? hierarchy.getDirtyClusterCount() : 0;
+    }
+
+    // Shortest walk from the robot through one cell of every target id; empty if there is none
+    public synchronized int[] replan() {
+        if (hierarchy != null) {
+            return hierarchy.findOptimalPath(robot);
+        }
+        long idMask = maze.getTargetIdMask();
+        int colorBits = Long.bitCount(idMask);
+        if (colorBits == 0) {
+            return new int[]{robot};
+        }
+
+        // Node 0 is the robot, node i is the target of field i - 1
+        int nodeCount = sources.length + 1;
+        int[] colorOf = new int[nodeCount];
+        int[][] distances = new int[nodeCount][];
+        distances[0] = new int[nodeCount];
+        long reachableIds = 0;
+        for (int i = 1; i < nodeCount; i++) {
+            int targetId = maze.targetAt(sources[i - 1]);
+            colorOf[i] = 1 << Long.bitCount(idMask & ((1L << targetId) - 1));
+            distances[0][i] = distanceOrUnreachable(i - 1, robot);
+            if (distances[0][i] != RoutePlanner.UNREACHABLE) {
+                reachableIds |= 1L << targetId;
+            }
+        }
+        if (reachableIds != idMask) {
+            return new int[0]; // Some colour cannot be reached
+        }
+        for (int i = 1; i < nodeCount; i++) {
+            if (distances[0][i] == RoutePlanner.UNREACHABLE) {
+                continue;
+            }
+            distances[i] = new int[nodeCount];
+            for (int j = 1; j < nodeCount; j++) {
+                distances[i][j] = distanceOrUnreachable(j - 1, sources[i - 1]);
+            }
+        }
+
+        int[] order = RoutePlanner.solveOrder(nodeCount, colorBits, colorOf, distances);
+
+        int length = 1;
+        for (int i = 1; i < order.length; i++) {
+            length += distances[order[i - 1]][order[i]];
+        }
+        int[] path = new int[length];
+        int cell = robot;
+        path[0] = cell;
+        int end = 0;
+        for (int i = 1; i < order.length; i++) {
+            // Walk downhill on the field of the next target
+            int[] g = gValues[order[i] - 1];
+            for (int step = distances[order[i - 1]][order[i]]; step > 0; step--) {
+                int count = maze.openNeighbors(cell, neighbors);
+                int next = -1;
+                for (int n = 0; n < count; n++) {
+                    if (g[neighbors[n]] == g[cell] - 1) {
+                        next = neighbors[n];
+                        break;
+                    }
+                }
+                path[++end] = next;
+                cell = next;
+            }
+        }
+        return path;
+    }
+
+    private int distanceOrUnreachable(int field, int cell) {
+        int distance = gValues[field][cell];
+        return distance >= INFINITY ? RoutePlanner.UNREACHABLE : distance;
+    }
+
+    private int fieldOf(int cell) {
+        for (int field = 0; field < sources.length; field++) {
+            if (sources[field] == cell) {
+                return field;
+            }
+        }
+        throw new IllegalStateException("No distance field for target cell " + cell);
+    }
+
+    private long addField(int source) {
+        int field = sources.length;
+        sources = Arrays.copyOf(sources, field + 1);
+        gValues = Arrays.copyOf(gValues, field + 1);
+        rhsValues = Arrays.copyOf(rhsValues, field + 1);
+        sources[field] = source;
+        gValues[field] = new int[maze.getCellCount()];
+        rhsValues[field] = new int[maze.getCellCount()];
+        Arrays.fill(gValues[field], INFINITY);
+        Arrays.fill(rhsValues[field], INFINITY);
+        rhsValues[field][source] = 0;
+        queue.push(source, 0);
+        return repair(field);
+    }
+
+    private void removeField(int field) {
+        int last = sources.length - 1;
+        sources[field] = sources[last];
+        gValues[field] = gValues[last];
+        rhsValues[field] = rhsValues[last];
+        sources = Arrays.copyOf(sources, last);
+        gValues = Arrays.copyOf(gValues, last);
+        rhsValues = Arrays.copyOf(rhsValues, last);
+    }
+
+    // Recomputes rhs of a cell from its neighbours and queues it if it became inconsistent
+    private void updateCell(int field, int cell) {
+        int[] g = gValues[field];
+        int[] rhs = rhsValues[field];
+        if (cell != sources[field]) {
+            int best = INFINITY;
+            int count = maze.openNeighbors(cell, neighbors);
+            for (int i = 0; i < count; i++) {
+                best = Math.min(best, g[neighbors[i]] + 1);
+            }
+            rhs[cell] = best;
+        } else {
+            rhs[cell] = 0;
+        }
+        if (g[cell] != rhs[cell]) {
+            queue.push(cell, Math.min(g[cell], rhs[cell]));
+        } else {
+            queue.remove(cell);
+        }
+    }
+
+    // Processes inconsistent cells until the field is consistent again; returns how many were touched
+    private long repair(int field) {
+        int[] g = gValues[field];
+        int[] rhs = rhsValues[field];
+        long touched = 0;
+        while (!queue.isEmpty()) {
+            if (building && (touched & Cancellation.CHECK_MASK) == Cancellation.CHECK_MASK) {
+                Cancellation.checkpoint();
+            }
+            int cell = queue.poll();
+            touched++;
+            if (g[cell] > rhs[cell]) {
+                g[cell] = rhs[cell];          // overconsistent: distance got shorter
+            } else {
+                g[cell] = INFINITY;           // underconsistent: distance got longer
+                updateCell(field, cell);
+            }
+            int count = maze.openNeighbors(cell, expanded);
+            for (int i = 0; i < count; i++) {
+                updateCell(field, expanded[i]);
+            }
+        }
+        return touched;
+    }
+}
@@ -0,0 +1,217 @@
+package org.example;
+
+import com.illposed.osc.OSCMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Moves decoded OSC messages off the listener thread. Messages go into a bounded lock-free
+ * queue; one worker drains it in batches, drops what a later message in the same batch makes
+ * redundant and hands the rest to the batch handler. The handler runs on the worker only, so
+ * it can keep its state without locking. Addresses are expected normalised, the way
+ * MessageHandler passes messages on.
+ */
+public class IngestPipeline implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final BoundedMpscQueue<OSCMessage> queue;
+    private final int batchSize;
+    private final Consumer<List<OSCMessage>> handler;
+    private final LogBuffer log;
+    private final Thread worker;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+    private volatile boolean wakeRequested;
+    // Offer time of the oldest message not yet drained, 0 if none or metrics are off
+    private final AtomicLong oldestOffer = new AtomicLong();
+    private long batchNanos;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public IngestPipeline(Consumer<List<OSCMessage>> handler, LogBuffer log) {
+        this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, handler, log);
+    }
+
+    public IngestPipeline(int capacity, int batchSize, Consumer<List<OSCMessage>> handler, LogBuffer log) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.queue = new BoundedMpscQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.handler = handler;
+        this.log = log;
+        worker = new Thread(this::drain, "osc-ingest");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Called from the listener thread; returns false and drops the message if the queue is full
+    public boolean offer(OSCMessage message) {
+        if (!queue.offer(message)) {
+            dropped.increment();
+            return false;
+        }
+        received.increment();
+        if (Metrics.isEnabled() && oldestOffer.get() == 0) {
+            oldestOffer.compareAndSet(0, System.nanoTime());
+        }
+        if (parked) {
+            LockSupport.unpark(worker);
+        }
+        return true;
+    }
+
+    // Runs the handler with an empty batch if nothing else is queued, e.g. after a background solve finished
+    public void wake() {
+        wakeRequested = true;
+        LockSupport.unpark(worker);
+    }
+
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    // For the handler: when the oldest message of the current batch was offered, 0 if unknown
+    public long getBatchNanos() {
+        return batchNanos;
+    }
+
+    private void drain() {
+        List<OSCMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            batch.clear();
+            queue.drainTo(batch, batchSize);
+            if (batch.isEmpty() && !wakeRequested) {
+                // Announce the park before the last look so a concurrent offer either is seen here or unparks us
+                parked = true;
+                if (queue.isEmpty() && !wakeRequested && running) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                parked = false;
+                continue;
+            }
+            wakeRequested = false;
+            batchNanos = oldestOffer.getAndSet(0);
+
+            int size = batch.size();
+            List<OSCMessage> effective = coalesce(batch);
+            coalesced.add(size - effective.size());
+            batches.increment();
+            try {
+                handler.accept(effective);
+            } catch (RuntimeException e) {
+                // Keep draining; the handler logs what it can itself, this is the last resort
+                log.append(LogBuffer.Level.ERROR, "Ingest batch of " + effective.size() + " messages failed: " + e);
+            }
+        }
+    }
+
+    // Drops the messages a later one in the same batch makes redundant: everything before the
+    // last init, all but the last update of a wall and all but the last robot position.
+    // Single-wall updates, robot moves and target moves commute, so the survivors keep their
+    // first position. A blob delta may rewrite any wall, so nothing is moved across it: it
+    // starts a new run of coalescing.
+    static List<OSCMessage> coalesce(List<OSCMessage> batch) {
+        int first = 0;
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            if (MazeSession.INIT.equals(batch.get(i).getAddress())) {
+                first = i;
+                break;
+            }
+        }
+
+        List<OSCMessage> result = new ArrayList<>(batch.size() - first);
+        Map<Long, Integer> wallSlots = new HashMap<>();
+        int robotSlot = -1;
+        for (int i = first; i < batch.size(); i++) {
+            OSCMessage message = batch.get(i);
+            String address = message.getAddress();
+            if (MazeSession.UPDATE.equals(address)) {
+                if (isBoardDelta(message.getArguments())) {
+                    wallSlots.clear();
+                    robotSlot = -1;
+                    result.add(message);
+                    continue;
+                }
+                long key = wallKey(message.getArguments());
+                if (key >= 0) {
+                    Integer slot = wallSlots.putIfAbsent(key, result.size());
+                    if (slot != null) {
+                        result.set(slot, message);
+                        continue;
+                    }
+                }
+            } else if (MazeSession.ROBOT.equals(address)) {
+                if (robotSlot >= 0) {
+                    result.set(robotSlot, message);
+                    continue;
+                }
+                robotSlot = result.size();
+            }
+            result.add(message);
+        }
+        return result;
+    }
+
+    // Same test as MazeSession.onUpdate uses to tell a blob delta from a single-wall update
+    private static boolean isBoardDelta(List<Object> args) {
+        return !args.isEmpty() && args.get(0) instanceof byte[];
+    }
+
+    // Identifies the wall an update touches, or -1 if its arguments are malformed
+    private static long wallKey(List<Object> args) {
+        if (args.size() < 4 || !(args.get(0) instanceof Integer row) || !(args.get(1) instanceof Integer col)
+                || !(args.get(2) instanceof Integer direction) || direction < 0 || direction > 3) {
+            return -1;
+        }
+        // The wall left of a cell is the right wall of its left neighbour; key both the same way
+        int r = row;
+        int c = col;
+        int d = direction;
+        if (d == MazeModel.UP) {
+            r--;
+            d = MazeModel.DOWN;
+        } else if (d == MazeModel.LEFT) {
+            c--;
+            d = MazeModel.RIGHT;
+        }
+        if (r < -1 || c < -1) {
+            return -1;
+        }
+        return ((long) (r + 1) << 33) | ((long) (c + 1) << 1) | (d == MazeModel.DOWN ? 1 : 0);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+}
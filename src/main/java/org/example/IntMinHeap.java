@@ -0,0 +1,144 @@
+package org.example;
+
+import java.util.Arrays;
+
+// Indexed binary min-heap over int ids with long priorities; an id already queued is re-prioritised in place
+final class IntMinHeap {
+    private int[] heap;      // ids in heap order
+    private long[] keys;     // priority of heap[i]
+    private int[] positions; // heap position of every id, -1 when not queued
+    private int size;
+
+    IntMinHeap(int capacity) {
+        capacity = Math.max(capacity, 16);
+        heap = new int[capacity];
+        keys = new long[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        return id < positions.length && positions[id] >= 0;
+    }
+
+    long peekKey() {
+        return keys[0];
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    // Inserts the id or moves it to its new priority if it is already queued
+    void push(int id, long key) {
+        if (id >= positions.length) {
+            int old = positions.length;
+            positions = Arrays.copyOf(positions, Math.max(id + 1, old * 2));
+            Arrays.fill(positions, old, positions.length, -1);
+        }
+        int pos = positions[id];
+        if (pos < 0) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            pos = size++;
+            heap[pos] = id;
+            keys[pos] = key;
+            positions[id] = pos;
+            siftUp(pos);
+        } else if (key < keys[pos]) {
+            keys[pos] = key;
+            siftUp(pos);
+        } else if (key > keys[pos]) {
+            keys[pos] = key;
+            siftDown(pos);
+        }
+    }
+
+    int poll() {
+        int id = heap[0];
+        positions[id] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            keys[0] = keys[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return id;
+    }
+
+    void remove(int id) {
+        if (!contains(id)) {
+            return;
+        }
+        int pos = positions[id];
+        positions[id] = -1;
+        if (pos == --size) {
+            return;
+        }
+        int moved = heap[size];
+        heap[pos] = moved;
+        keys[pos] = keys[size];
+        positions[moved] = pos;
+        siftUp(pos);
+        siftDown(positions[moved]);
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int pos) {
+        int id = heap[pos];
+        long key = keys[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(parent, pos);
+            pos = parent;
+        }
+        heap[pos] = id;
+        keys[pos] = key;
+        positions[id] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int id = heap[pos];
+        long key = keys[pos];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            move(child, pos);
+            pos = child;
+        }
+        heap[pos] = id;
+        keys[pos] = key;
+        positions[id] = pos;
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        positions[heap[to]] = to;
+    }
+}
@@ -1,13 +1,464 @@
 package org.example;
 
+import java.lang.invoke.VarHandle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Board state synced over OSC: one int per cell in a flat array. The store is double buffered;
+ * a single writer changes the back buffer and publishes it with a new epoch, readers take the
+ * published Snapshot without locking. A snapshot stays readable until the writer starts on
+ * its buffer again, after the next publish; isValid() tells a reader whether what it read
+ * is still consistent, toArray() copies a consistent view.
+ *
+ * Changes arrive as binary deltas (see applyDelta) so large boards can be synced at high rates;
+ * a delta is applied as a whole or not at all. MazeSession keeps its maze mirrored here.
+ */
 public class InternalState {
-    public int[][] field;
+    public static final byte FORMAT_VERSION = 1;
+    // Delta encodings
+    public static final byte FULL = 0;     // rows, cols (those of the board), then every value
+    public static final byte RUNS = 1;     // run count, then per run: start, length, value
+    public static final byte BITSET = 2;   // start, length, a bit per covered cell, then the values of the set bits
+
+    private static final class Buffer {
+        final int[] cells;
+        volatile long stamp;   // odd while the writer changes the cells
+
+        Buffer(int size) {
+            cells = new int[size];
+        }
+    }
+
+    // Vetoes a value before it is written; throws IllegalArgumentException to reject the whole delta
+    @FunctionalInterface
+    public interface CellCheck {
+        void check(int index, int value);
+    }
+
+    // Consistent view of the board as of one epoch
+    public static final class Snapshot {
+        private final Buffer buffer;
+        private final long stamp;
+        private final long epoch;
+        private final int rows;
+        private final int cols;
+
+        private Snapshot(Buffer buffer, long epoch, int rows, int cols) {
+            this.buffer = buffer;
+            this.stamp = buffer.stamp;
+            this.epoch = epoch;
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        public long getEpoch() {
+            return epoch;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getCols() {
+            return cols;
+        }
+
+        public int get(int row, int col) {
+            return buffer.cells[row * cols + col];
+        }
+
+        public int get(int index) {
+            return buffer.cells[index];
+        }
+
+        // Whether everything read from this snapshot so far belongs to its epoch
+        public boolean isValid() {
+            VarHandle.acquireFence(); // keep the reads above from moving past the stamp check
+            return buffer.stamp == stamp;
+        }
+
+        // Copy of the cells, or null if the writer reused the buffer meanwhile
+        public int[] toArray() {
+            int[] copy = Arrays.copyOf(buffer.cells, rows * cols);
+            return isValid() ? copy : null;
+        }
+    }
+
+    private int rows;
+    private int cols;
+    private Buffer front;
+    private Buffer back;
+    private long epoch;
+    private volatile Snapshot current;
+
+    // Writer side: cells changed since the last publish, replayed onto the other buffer later
+    private int[] changed = new int[64];
+    private int changedCount;
+    private int[] lastChanged = new int[64];
+    private int lastChangedCount;
+    // Cells the running applyDelta wrote and their values before it, to undo only its own writes
+    private int[] deltaCells = new int[64];
+    private int[] deltaPrevious = new int[64];
+    private int deltaCount;
+    private boolean lastChangedAll;
+    private boolean writing;
+
+    public InternalState() {
+        init(0, 0);
+    }
+
+    // Resets the board to rows x cols zeros
+    public synchronized void init(int rows, int cols) {
+        if (rows < 0 || cols < 0 || (long) rows * cols > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Board size out of range: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        front = new Buffer(rows * cols);
+        back = new Buffer(rows * cols);
+        changedCount = 0;
+        lastChangedCount = 0;
+        lastChangedAll = false;
+        writing = false;
+        current = new Snapshot(front, ++epoch, rows, cols);
+    }
+
+    // Takes over the current board of another store
+    public void update(InternalState internalState) {
+        Snapshot snapshot;
+        int[] cells;
+        do {
+            snapshot = internalState.getSnapshot();
+            cells = snapshot.toArray();
+        } while (cells == null);
+        synchronized (this) {
+            init(snapshot.getRows(), snapshot.getCols());
+            beginWrite();
+            System.arraycopy(cells, 0, back.cells, 0, cells.length);
+            changedCount = Integer.MAX_VALUE;
+            publish();
+        }
+    }
+
+    // Latest published board; safe from any thread
+    public Snapshot getSnapshot() {
+        return current;
+    }
+
+    public long getEpoch() {
+        return current.getEpoch();
+    }
+
+    public synchronized int getRows() {
+        return rows;
+    }
+
+    public synchronized int getCols() {
+        return cols;
+    }
+
+    // Changes one cell of the next epoch; call publish() once the batch is complete
+    public synchronized void set(int index, int value) {
+        if (index < 0 || index >= back.cells.length) {
+            throw new IndexOutOfBoundsException("Cell " + index + " outside a board of " + back.cells.length);
+        }
+        if (!writing && front.cells[index] == value) {
+            return; // unchanged, no need to start a new epoch
+        }
+        beginWrite();
+        if (back.cells[index] != value) {
+            back.cells[index] = value;
+            recordChange(index);
+        }
+    }
+
+    // Makes the changes since the last publish visible to readers as a new epoch
+    public synchronized void publish() {
+        if (!writing) {
+            return;
+        }
+        back.stamp++;
+        Buffer published = back;
+        back = front;
+        front = published;
+        current = new Snapshot(front, ++epoch, rows, cols);
+
+        // The new back buffer misses exactly these changes
+        int[] swap = lastChanged;
+        lastChanged = changed;
+        changed = swap;
+        lastChangedAll = changedCount > front.cells.length / 4;
+        lastChangedCount = lastChangedAll ? 0 : changedCount;
+        changedCount = 0;
+        writing = false;
+    }
+
+    // Invalidates snapshots of the back buffer and brings it up to date with the front
+    private void beginWrite() {
+        if (writing) {
+            return;
+        }
+        writing = true;
+        back.stamp++;
+        VarHandle.releaseFence(); // the odd stamp is visible before any cell changes
+        if (lastChangedAll) {
+            System.arraycopy(front.cells, 0, back.cells, 0, front.cells.length);
+        } else {
+            for (int i = 0; i < lastChangedCount; i++) {
+                back.cells[lastChanged[i]] = front.cells[lastChanged[i]];
+            }
+        }
+        lastChangedAll = false;
+        lastChangedCount = 0;
+    }
+
+    // Undoes every write since the last publish, so the back buffer matches the front again
+    private void rollback() {
+        if (!writing) {
+            return;
+        }
+        if (changedCount == Integer.MAX_VALUE) {
+            System.arraycopy(front.cells, 0, back.cells, 0, front.cells.length);
+        } else {
+            for (int i = 0; i < changedCount; i++) {
+                back.cells[changed[i]] = front.cells[changed[i]];
+            }
+        }
+        changedCount = 0;
+        back.stamp++;
+        writing = false;
+    }
+
+    private void recordChange(int index) {
+        if (changedCount > back.cells.length / 4) {
+            changedCount = Integer.MAX_VALUE; // too many to track, copy everything instead
+            return;
+        }
+        if (changedCount == changed.length) {
+            changed = Arrays.copyOf(changed, changedCount * 2);
+        }
+        changed[changedCount++] = index;
+    }
+
+    public int[] applyDelta(byte[] blob) {
+        return applyDelta(blob, (index, value) -> { });
+    }
+
+    /**
+     * Applies a binary delta and publishes it; returns the cells whose value changed, in the
+     * order they were written. All numbers are big-endian. Header: format version, encoding,
+     * value width in bytes (1 and 2 are unsigned, 4 is a signed int). A FULL delta must have
+     * the size of the board; init resizes it. Every value is passed to check first. A delta
+     * that is malformed or vetoed changes nothing: its own writes are undone, while set() calls
+     * made before it stay pending and are published with the next successful delta or publish().
+     */
+    public synchronized int[] applyDelta(byte[] blob, CellCheck check) {
+        ByteBuffer in = ByteBuffer.wrap(blob);
+        boolean wasWriting = writing;
+        deltaCount = 0;
+        try {
+            byte version = in.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported state delta version " + version);
+            }
+            byte encoding = in.get();
+            int width = in.get();
+            if (width != 1 && width != 2 && width != 4) {
+                throw new IllegalArgumentException("Unsupported value width " + width);
+            }
+            switch (encoding) {
+                case FULL -> {
+                    int deltaRows = in.getInt();
+                    int deltaCols = in.getInt();
+                    if (deltaRows != rows || deltaCols != cols) {
+                        throw new IllegalArgumentException("Full state of " + deltaRows + "x" + deltaCols
+                                + " for a board of " + rows + "x" + cols);
+                    }
+                    for (int index = 0; index < rows * cols; index++) {
+                        int value = readValue(in, width);
+                        check.check(index, value);
+                        stage(index, value);
+                    }
+                }
+                case RUNS -> {
+                    int runs = in.getInt();
+                    for (int r = 0; r < runs; r++) {
+                        int start = in.getInt();
+                        int length = in.getInt();
+                        int value = readValue(in, width);
+                        checkRange(start, length);
+                        for (int index = start; index < start + length; index++) {
+                            check.check(index, value);
+                            stage(index, value);
+                        }
+                    }
+                }
+                case BITSET -> {
+                    int start = in.getInt();
+                    int length = in.getInt();
+                    checkRange(start, length);
+                    byte[] bits = new byte[(length + 7) >>> 3];
+                    in.get(bits);
+                    for (int i = 0; i < length; i++) {
+                        if ((bits[i >>> 3] & (1 << (i & 7))) != 0) {
+                            int value = readValue(in, width);
+                            check.check(start + i, value);
+                            stage(start + i, value);
+                        }
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown state delta encoding " + encoding);
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException(in.remaining() + " trailing bytes in state delta");
+            }
+        } catch (BufferUnderflowException e) {
+            undoDelta(wasWriting);
+            throw new IllegalArgumentException("Truncated state delta", e);
+        } catch (RuntimeException e) {
+            undoDelta(wasWriting);
+            throw e;
+        }
+        publish();
+        return Arrays.copyOf(deltaCells, deltaCount);
+    }
+
+    // Writes one cell for applyDelta, remembering its value before the delta
+    private void stage(int index, int value) {
+        beginWrite();
+        int previous = back.cells[index];
+        if (previous == value) {
+            return;
+        }
+        if (deltaCount == deltaCells.length) {
+            deltaCells = Arrays.copyOf(deltaCells, deltaCount * 2);
+            deltaPrevious = Arrays.copyOf(deltaPrevious, deltaCount * 2);
+        }
+        deltaCells[deltaCount] = index;
+        deltaPrevious[deltaCount++] = previous;
+        back.cells[index] = value;
+        recordChange(index);
+    }
+
+    // Undoes the writes of a failed applyDelta, newest first since a cell may be written twice.
+    // set() calls made before it stay pending.
+    private void undoDelta(boolean wasWriting) {
+        if (!wasWriting) {
+            rollback(); // the delta's writes are all there is to undo
+            return;
+        }
+        for (int i = deltaCount - 1; i >= 0; i--) {
+            back.cells[deltaCells[i]] = deltaPrevious[i];
+        }
+        deltaCount = 0;
+    }
+
+    private void checkRange(int start, int length) {
+        if (start < 0 || length < 0 || (long) start + length > (long) rows * cols) {
+            throw new IllegalArgumentException("Cells " + start + "+" + length + " outside a board of " + rows * cols);
+        }
+    }
+
+    private static int readValue(ByteBuffer in, int width) {
+        return switch (width) {
+            case 1 -> in.get() & 0xFF;
+            case 2 -> in.getShort() & 0xFFFF;
+            default -> in.getInt();
+        };
+    }
+
+    /**
+     * Encodes the change from before to after as the smallest of the three encodings, for
+     * senders and tools. Both arrays are rows x cols boards in row-major order.
+     */
+    public static byte[] encodeDelta(int[] before, int[] after, int rows, int cols) {
+        if (before.length != rows * cols || after.length != rows * cols) {
+            throw new IllegalArgumentException("Boards must both have " + rows * cols + " cells");
+        }
+        int width = 1;
+        int first = -1;
+        int last = -1;
+        int changedCells = 0;
+        int runs = 0;
+        for (int i = 0; i < after.length; i++) {
+            width = Math.max(width, widthOf(after[i]));
+            if (before[i] != after[i]) {
+                if (first < 0) {
+                    first = i;
+                }
+                if (last < 0 || last != i - 1 || after[last] != after[i]) {
+                    runs++;
+                }
+                last = i;
+                changedCells++;
+            }
+        }
+
+        long fullSize = 11L + (long) after.length * width;
+        long runSize = 7L + (long) runs * (8 + width);
+        long bitsetSize = first < 0 ? Long.MAX_VALUE : 11L + ((last - first + 1 + 7) >>> 3) + (long) changedCells * width;
+        ByteBuffer out;
+        if (fullSize <= runSize && fullSize <= bitsetSize) {
+            out = header((int) fullSize, FULL, width);
+            out.putInt(rows).putInt(cols);
+            for (int value : after) {
+                writeValue(out, width, value);
+            }
+        } else if (runSize <= bitsetSize) {
+            out = header((int) runSize, RUNS, width);
+            out.putInt(runs);
+            for (int i = 0; i < after.length; i++) {
+                if (before[i] == after[i]) {
+                    continue;
+                }
+                int end = i + 1;
+                while (end < after.length && before[end] != after[end] && after[end] == after[i]) {
+                    end++;
+                }
+                out.putInt(i).putInt(end - i);
+                writeValue(out, width, after[i]);
+                i = end - 1;
+            }
+        } else {
+            out = header((int) bitsetSize, BITSET, width);
+            int length = last - first + 1;
+            out.putInt(first).putInt(length);
+            byte[] bits = new byte[(length + 7) >>> 3];
+            for (int i = first; i <= last; i++) {
+                if (before[i] != after[i]) {
+                    bits[(i - first) >>> 3] |= (byte) (1 << ((i - first) & 7));
+                }
+            }
+            out.put(bits);
+            for (int i = first; i <= last; i++) {
+                if (before[i] != after[i]) {
+                    writeValue(out, width, after[i]);
+                }
+            }
+        }
+        return out.array();
+    }
+
+    private static ByteBuffer header(int size, byte encoding, int width) {
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(FORMAT_VERSION).put(encoding).put((byte) width);
+        return out;
+    }
 
-    public void init(int width, int height) {
-        field = new int[width][height];
+    private static int widthOf(int value) {
+        if (value >= 0 && value <= 0xFF) {
+            return 1;
+        }
+        return value >= 0 && value <= 0xFFFF ? 2 : 4;
     }
 
-    public void update(InternalState internalState){
-        this.field = internalState.field;
+    private static void writeValue(ByteBuffer out, int width, int value) {
+        switch (width) {
+            case 1 -> out.put((byte) value);
+            case 2 -> out.putShort((short) value);
+            default -> out.putInt(value);
+        }
     }
 }
@@ -0,0 +1,164 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Maze contracted to its decision points. Only branching cells, dead ends, target cells
+ * and the start are kept as nodes; every corridor of degree-2 cells between two nodes
+ * becomes one edge weighted by its length. The corridor cells are stored per edge so a
+ * path over the graph can be expanded back to single steps.
+ */
+public class JunctionGraph implements SearchGraph {
+    private final MazeModel maze;
+    private final int startNode;
+    private final int[] nodeCells;      // sorted cell index of every node
+    private final int[] edgeStart;      // edges of node n are [edgeStart[n], edgeStart[n + 1])
+    private final int[] edgeTargets;
+    private final int[] edgeWeights;
+    private final int[] corridorStart;  // interior cells of edge e are corridorCells[corridorStart[e]..+weight-1]
+    private final int[] corridorCells;
+
+    private JunctionGraph(MazeModel maze, int start, int[] nodeCells, int[] edgeStart, int[] edgeTargets,
+                          int[] edgeWeights, int[] corridorStart, int[] corridorCells) {
+        this.maze = maze;
+        this.nodeCells = nodeCells;
+        this.edgeStart = edgeStart;
+        this.edgeTargets = edgeTargets;
+        this.edgeWeights = edgeWeights;
+        this.corridorStart = corridorStart;
+        this.corridorCells = corridorCells;
+        this.startNode = nodeOf(start);
+    }
+
+    public static JunctionGraph build(MazeModel maze, int start) {
+        int cellCount = maze.getCellCount();
+
+        // Collect the nodes in cell order
+        int nodeCount = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (isNode(maze, start, cell)) nodeCount++;
+        }
+        int[] nodeCells = new int[nodeCount];
+        for (int cell = 0, n = 0; cell < cellCount; cell++) {
+            if (isNode(maze, start, cell)) nodeCells[n++] = cell;
+        }
+
+        // Walk every corridor leaving every node until the next node
+        int[] edgeStart = new int[nodeCount + 1];
+        int[] edgeTargets = new int[Math.max(16, nodeCount * 2)];
+        int[] edgeWeights = new int[edgeTargets.length];
+        int[] corridorStart = new int[edgeTargets.length];
+        int[] corridorCells = new int[Math.max(16, cellCount - nodeCount)];
+        int edgeCount = 0;
+        int corridorLength = 0;
+
+        for (int node = 0; node < nodeCount; node++) {
+            edgeStart[node] = edgeCount;
+            int from = nodeCells[node];
+            for (int direction = 0; direction < 4; direction++) {
+                if (!maze.isOpen(from, direction)) {
+                    continue;
+                }
+                if (edgeCount == edgeTargets.length) {
+                    int capacity = edgeCount * 2;
+                    edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+                    edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+                    corridorStart = Arrays.copyOf(corridorStart, capacity);
+                }
+                corridorStart[edgeCount] = corridorLength;
+
+                int heading = direction;
+                int cell = maze.neighbor(from, heading);
+                int weight = 1;
+                while (!isNode(maze, start, cell)) {
+                    if (corridorLength == corridorCells.length) {
+                        corridorCells = Arrays.copyOf(corridorCells, corridorLength * 2);
+                    }
+                    corridorCells[corridorLength++] = cell;
+                    heading = continuation(maze, cell, heading);
+                    cell = maze.neighbor(cell, heading);
+                    weight++;
+                }
+
+                edgeTargets[edgeCount] = Arrays.binarySearch(nodeCells, cell);
+                edgeWeights[edgeCount] = weight;
+                edgeCount++;
+            }
+        }
+        edgeStart[nodeCount] = edgeCount;
+
+        return new JunctionGraph(maze, start, nodeCells, edgeStart,
+                Arrays.copyOf(edgeTargets, edgeCount), Arrays.copyOf(edgeWeights, edgeCount),
+                Arrays.copyOf(corridorStart, edgeCount), Arrays.copyOf(corridorCells, corridorLength));
+    }
+
+    private static boolean isNode(MazeModel maze, int start, int cell) {
+        return cell == start || maze.degree(cell) != 2 || maze.isTarget(cell);
+    }
+
+    // The way out of a corridor cell other than the one we came in through
+    private static int continuation(MazeModel maze, int cell, int heading) {
+        int back = MazeModel.opposite(heading);
+        for (int direction = 0; direction < 4; direction++) {
+            if (direction != back && maze.isOpen(cell, direction)) {
+                return direction;
+            }
+        }
+        throw new IllegalStateException("Corridor cell " + cell + " has no exit");
+    }
+
+    @Override
+    public MazeModel getMaze() {
+        return maze;
+    }
+
+    public int getStartNode() {
+        return startNode;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCells.length;
+    }
+
+    public int getEdgeCount() {
+        return edgeTargets.length;
+    }
+
+    @Override
+    public int cellOf(int node) {
+        return nodeCells[node];
+    }
+
+    @Override
+    public int nodeOf(int cell) {
+        int node = Arrays.binarySearch(nodeCells, cell);
+        return node >= 0 ? node : -1;
+    }
+
+    @Override
+    public int getMaxDegree() {
+        return 4;
+    }
+
+    @Override
+    public int edges(int node, int[] targets, int[] weights) {
+        int first = edgeStart[node];
+        int count = edgeStart[node + 1] - first;
+        System.arraycopy(edgeTargets, first, targets, 0, count);
+        System.arraycopy(edgeWeights, first, weights, 0, count);
+        return count;
+    }
+
+    @Override
+    public void appendEdge(int from, int to, int weight, int[] path, int offset) {
+        for (int e = edgeStart[from]; e < edgeStart[from + 1]; e++) {
+            if (edgeTargets[e] == to && edgeWeights[e] == weight) {
+                System.arraycopy(corridorCells, corridorStart[e], path, offset, weight - 1);
+                path[offset + weight - 1] = nodeCells[to];
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No edge of weight " + weight + " from node " + from + " to " + to);
+    }
+}
@@ -2,115 +2,243 @@ package org.example;
 import java.util.*;
 
 public class LabyrinthGenerator {
+    public enum Algorithm {
+        // Depth-first backtracker with an explicit stack, needs the whole maze in memory
+        BACKTRACKER,
+        // Eller's algorithm, works row by row with memory bounded by the width
+        ELLER
+    }
+
     private final int rows;
     private final int cols;
-    private final GridCell[][] grid;
-    private final Random random = new Random();
-    private final Set<GridCell> visited = new HashSet<>();
+    private final MazeSeed seed;
 
     public LabyrinthGenerator(int rows, int cols) {
+        this(rows, cols, new MazeSeed(1));
+    }
+
+    public LabyrinthGenerator(int rows, int cols, long seed) {
+        this(rows, cols, new MazeSeed(seed));
+    }
+
+    // Every generate call with the same seed and algorithm carves the same maze
+    public LabyrinthGenerator(int rows, int cols, MazeSeed seed) {
         this.rows = rows;
         this.cols = cols;
-        this.grid = new GridCell[rows][cols];
-        random.setSeed(1);
+        this.seed = seed;
     }
 
-    public GameGrid generateLabyrinth() {
-        GameGrid gameGrid = new GameGrid(rows, cols);
-
-        // Initialize grid with all cells
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                grid[i][j] = new GridCell(i, j);
-                // Initially all cells have all walls
-                grid[i][j].updateBorder();
+    public MazeSeed getSeed() {
+        return seed;
+    }
+
+    /**
+     * Puts target ids 0..targetCount-1 on distinct cells that are neither targets yet nor in
+     * keepFree. Target i draws its rank among the cells still free from its own stream of
+     * seed, so placement takes no retries however full the maze is, and one target's cell only
+     * depends on the seed and the targets placed before it.
+     */
+    public static void placeTargets(MazeModel maze, int targetCount, MazeSeed seed, int... keepFree) {
+        // Cells taken so far, ascending
+        int[] taken = new int[maze.getTargetCount() + keepFree.length + targetCount];
+        int takenCount = 0;
+        for (int i = 0; i < maze.getTargetCount(); i++) {
+            taken[takenCount++] = maze.getTargetCell(i);
+        }
+        for (int cell : keepFree) {
+            if (cell < 0 || cell >= maze.getCellCount()) {
+                throw new IllegalArgumentException("Cell outside the maze: " + cell);
+            }
+            if (!maze.isTarget(cell)) {
+                taken[takenCount++] = cell;
             }
         }
+        Arrays.sort(taken, 0, takenCount);
+        for (int i = 1; i < takenCount; i++) {
+            if (taken[i] == taken[i - 1]) {
+                System.arraycopy(taken, i + 1, taken, i, takenCount - i - 1);
+                takenCount--;
+                i--;
+            }
+        }
+        if ((long) takenCount + targetCount > maze.getCellCount()) {
+            throw new IllegalArgumentException(targetCount + " targets do not fit in the "
+                    + (maze.getCellCount() - takenCount) + " free cells");
+        }
 
-        // Generate the maze paths
-        generateMazePaths(0, 0);
-
-        // Add border walls
-        addBorderWalls();
-
-        // Add all cells to the game grid
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                gameGrid.add(grid[i][j]);
+        for (int targetId = 0; targetId < targetCount; targetId++) {
+            // The rank-th free cell: step over every taken cell at or below it
+            int cell = seed.target(targetId).nextInt(maze.getCellCount() - takenCount);
+            int pos = 0;
+            while (pos < takenCount && taken[pos] <= cell) {
+                cell++;
+                pos++;
             }
+            System.arraycopy(taken, pos, taken, pos + 1, takenCount - pos);
+            taken[pos] = cell;
+            takenCount++;
+            maze.setTarget(cell, targetId);
         }
+    }
 
-        gameGrid.setGameCells(grid);
-        return gameGrid;
+    // Builds the maze together with its Swing view
+    public GameGrid generateLabyrinth() {
+        return new GameGrid(generate());
+    }
+
+    // Builds the maze without loading any UI classes; every cell starts with all walls
+    public MazeModel generate() {
+        return generate(Algorithm.BACKTRACKER);
     }
 
-    private void generateMazePaths(int row, int col) {
-        GridCell current = grid[row][col];
-        visited.add(current);
-
-        // Define possible directions: up, right, down, left
-        int[][] directions = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}};
-        List<int[]> possibleDirections = new ArrayList<>(Arrays.asList(directions));
-
-        while (!possibleDirections.isEmpty()) {
-            // Choose random direction
-            int index = random.nextInt(possibleDirections.size());
-            int[] dir = possibleDirections.remove(index);
-
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
-
-            // Check if the new position is valid and unvisited
-            if (newRow >= 0 && newRow < rows && newCol >= 0 && newCol < cols
-                    && !visited.contains(grid[newRow][newCol])) {
-
-                GridCell next = grid[newRow][newCol];
-
-                // Remove walls between current and next cell
-                if (dir[0] == -1) { // Up
-                    current.up = next;
-                    next.down = current;
-                } else if (dir[0] == 1) { // Down
-                    current.down = next;
-                    next.up = current;
-                } else if (dir[1] == -1) { // Left
-                    current.left = next;
-                    next.right = current;
-                } else if (dir[1] == 1) { // Right
-                    current.right = next;
-                    next.left = current;
+    public MazeModel generate(Algorithm algorithm) {
+        long startNanos = Metrics.start();
+        MazeModel maze = new MazeModel(rows, cols);
+        switch (algorithm) {
+            case BACKTRACKER -> generateMazePaths(maze);
+            case ELLER -> generateRows((row, openRight, openDown) -> {
+                int first = maze.index(row, 0);
+                for (int col = 0; col < cols; col++) {
+                    if (openRight[col]) maze.setOpen(first + col, MazeModel.RIGHT, true);
+                    if (openDown[col]) maze.setOpen(first + col, MazeModel.DOWN, true);
                 }
+            });
+        }
+        if (startNanos != 0) {
+            Metrics.GENERATION.record(System.nanoTime() - startNanos);
+        }
+        return maze;
+    }
+
+    // Depth-first backtracker. Each stack entry keeps the directions it has not tried yet
+    // (bits in up, right, down, left order), which reproduces the order of the former recursion.
+    private void generateMazePaths(MazeModel maze) {
+        SplittableRandom random = seed.generation();
+        int cellCount = maze.getCellCount();
+        long[] visited = new long[(cellCount + 63) >>> 6];
+        int[] stack = new int[Math.min(cellCount, 1024)];
+        byte[] untried = new byte[stack.length];
+        int depth = 0;
+
+        stack[depth] = 0;
+        untried[depth++] = 0b1111;
+        visited[0] |= 1L;
+
+        while (depth > 0) {
+            int top = depth - 1;
+            int remaining = untried[top];
+            if (remaining == 0) {
+                depth--;
+                continue;
+            }
 
-                // Update borders for both cells
-                current.updateBorder();
-                next.updateBorder();
+            // Choose random direction among the untried ones
+            int pick = random.nextInt(Integer.bitCount(remaining));
+            int direction = Integer.numberOfTrailingZeros(remaining);
+            for (int i = 0; i < pick; i++) {
+                direction = Integer.numberOfTrailingZeros(remaining & (-2 << direction));
+            }
+            untried[top] = (byte) (remaining & ~(1 << direction));
+
+            // Check if the next cell is inside the grid and unvisited
+            int current = stack[top];
+            int next = maze.neighbor(current, direction);
+            if (next < 0 || (visited[next >>> 6] & (1L << next)) != 0) {
+                continue;
+            }
 
-                // Continue with next cell
-                generateMazePaths(newRow, newCol);
+            // Remove the wall between current and next cell and continue from there
+            maze.setOpen(current, direction, true);
+            visited[next >>> 6] |= 1L << next;
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, Math.min(cellCount, depth * 2));
+                untried = Arrays.copyOf(untried, stack.length);
             }
+            stack[depth] = next;
+            untried[depth++] = 0b1111;
         }
     }
 
-    private void addBorderWalls() {
-        // Add walls around the border
-        for (int i = 0; i < rows; i++) {
-            // Left border
-            grid[i][0].left = null;
-            grid[i][0].updateBorder();
-
-            // Right border
-            grid[i][cols-1].right = null;
-            grid[i][cols-1].updateBorder();
+    // Eller's algorithm: streams the maze to the sink one row at a time, keeping only
+    // per-column set labels, so the number of rows is not limited by memory. Every row draws
+    // from its own region stream of the seed.
+    public void generateRows(MazeRowSink sink) {
+        int[] sets = new int[cols];       // set label of each column, labels are in [0, cols)
+        int[] parent = new int[cols];     // union-find over labels within the current row
+        int[] members = new int[cols];    // cells per set not yet considered for a down passage
+        boolean[] hasDown = new boolean[cols];
+        boolean[] used = new boolean[cols];
+        boolean[] openRight = new boolean[cols];
+        boolean[] openDown = new boolean[cols];
+
+        for (int col = 0; col < cols; col++) {
+            sets[col] = col;
         }
 
-        for (int j = 0; j < cols; j++) {
-            // Top border
-            grid[0][j].up = null;
-            grid[0][j].updateBorder();
+        for (int row = 0; row < rows; row++) {
+            SplittableRandom random = seed.region(row);
+            boolean lastRow = row == rows - 1;
+            for (int label = 0; label < cols; label++) {
+                parent[label] = label;
+            }
+            Arrays.fill(openRight, false);
+            Arrays.fill(openDown, false);
+
+            // Join neighbours of different sets at random; the last row joins all of them
+            for (int col = 0; col < cols - 1; col++) {
+                int left = find(parent, sets[col]);
+                int right = find(parent, sets[col + 1]);
+                if (left != right && (lastRow || random.nextBoolean())) {
+                    parent[right] = left;
+                    openRight[col] = true;
+                }
+            }
+            for (int col = 0; col < cols; col++) {
+                sets[col] = find(parent, sets[col]);
+            }
+
+            if (!lastRow) {
+                // Every set continues downwards through at least one of its cells
+                Arrays.fill(members, 0);
+                Arrays.fill(hasDown, false);
+                for (int col = 0; col < cols; col++) {
+                    members[sets[col]]++;
+                }
+                for (int col = 0; col < cols; col++) {
+                    int set = sets[col];
+                    boolean lastChance = --members[set] == 0 && !hasDown[set];
+                    if (lastChance || random.nextBoolean()) {
+                        openDown[col] = true;
+                        hasDown[set] = true;
+                    }
+                }
+            }
+
+            sink.acceptRow(row, openRight, openDown);
+
+            if (!lastRow) {
+                // Cells below a down passage keep their set, the others start a fresh one
+                Arrays.fill(used, false);
+                for (int col = 0; col < cols; col++) {
+                    if (openDown[col]) used[sets[col]] = true;
+                }
+                int free = 0;
+                for (int col = 0; col < cols; col++) {
+                    if (!openDown[col]) {
+                        while (used[free]) free++;
+                        used[free] = true;
+                        sets[col] = free;
+                    }
+                }
+            }
+        }
+    }
 
-            // Bottom border
-            grid[rows-1][j].down = null;
-            grid[rows-1][j].updateBorder();
+    private static int find(int[] parent, int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
         }
+        return label;
     }
-}
\ No newline at end of file
+}
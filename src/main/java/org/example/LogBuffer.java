@@ -0,0 +1,77 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Fixed-capacity ring of log lines that any thread can append to. Once full, every new line
+ * overwrites the oldest one; lines are numbered so a reader can tell what it missed.
+ */
+public class LogBuffer {
+    public enum Level {
+        INFO,
+        MESSAGE,
+        ERROR
+    }
+
+    public static final int DEFAULT_CAPACITY = 2000;
+
+    // Log of the application, shown by the console; views without a buffer of their own use it
+    private static final LogBuffer DEFAULT = new LogBuffer();
+
+    private final String[] lines;
+    private final Level[] levels;
+    private final long[] levelCounts = new long[Level.values().length];
+    private long total;
+
+    public static LogBuffer getDefault() {
+        return DEFAULT;
+    }
+
+    public LogBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LogBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        lines = new String[capacity];
+        levels = new Level[capacity];
+    }
+
+    // One line; a trailing line break is dropped
+    public synchronized void append(Level level, String line) {
+        if (line.endsWith("\n")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        int slot = (int) (total % lines.length);
+        lines[slot] = line;
+        levels[slot] = level;
+        levelCounts[level.ordinal()]++;
+        total++;
+    }
+
+    public int getCapacity() {
+        return lines.length;
+    }
+
+    // Lines appended since the start, including those overwritten since
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public synchronized long getCount(Level level) {
+        return levelCounts[level.ordinal()];
+    }
+
+    // Copies the lines numbered from 'since' on that are still held and returns the number the
+    // next line will get. Lines that were already overwritten are skipped.
+    public synchronized long copySince(long since, List<String> lineOut, List<Level> levelOut) {
+        for (long seq = Math.max(since, total - lines.length); seq < total; seq++) {
+            int slot = (int) (seq % lines.length);
+            lineOut.add(lines[slot]);
+            levelOut.add(levels[slot]);
+        }
+        return total;
+    }
+}
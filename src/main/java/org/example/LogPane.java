@@ -0,0 +1,131 @@
+package org.example;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Style;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Console view of a LogBuffer. A timer moves the new lines into the document in one batch per
+ * tick, one insert per run of lines with the same level, and drops the oldest lines so the
+ * document never holds more than the buffer. While paused nothing is rendered, only the
+ * counters keep going; on resume the view catches up with what the buffer still holds.
+ */
+public class LogPane extends JPanel {
+    private static final int FLUSH_MILLIS = 100;
+
+    private final LogBuffer buffer;
+    private final JTextPane textPane = new JTextPane();
+    private final StyledDocument doc = textPane.getStyledDocument();
+    private final Style[] styles = new Style[LogBuffer.Level.values().length];
+    private final Style noteStyle;
+    private final JToggleButton pauseButton = new JToggleButton("Pause");
+    private final JLabel status = new JLabel();
+    private final Timer timer = new Timer(FLUSH_MILLIS, e -> flush());
+    private final List<String> pendingLines = new ArrayList<>();
+    private final List<LogBuffer.Level> pendingLevels = new ArrayList<>();
+    private long rendered;
+    private int documentLines;
+
+    public LogPane(LogBuffer buffer) {
+        super(new BorderLayout());
+        this.buffer = buffer;
+        textPane.setEditable(false);
+        styles[LogBuffer.Level.INFO.ordinal()] = style("info", Color.BLACK);
+        styles[LogBuffer.Level.MESSAGE.ordinal()] = style("message", Color.GREEN);
+        styles[LogBuffer.Level.ERROR.ordinal()] = style("error", Color.RED);
+        noteStyle = style("note", Color.GRAY);
+
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        toolbar.add(pauseButton);
+        toolbar.add(status);
+        pauseButton.addActionListener(e -> pauseButton.setText(isPaused() ? "Resume" : "Pause"));
+
+        add(new JScrollPane(textPane), BorderLayout.CENTER);
+        add(toolbar, BorderLayout.SOUTH);
+        timer.setCoalesce(true);
+        timer.start();
+    }
+
+    private Style style(String name, Color color) {
+        Style style = textPane.addStyle(name, null);
+        StyleConstants.setForeground(style, color);
+        return style;
+    }
+
+    public boolean isPaused() {
+        return pauseButton.isSelected();
+    }
+
+    public void setPaused(boolean paused) {
+        pauseButton.setSelected(paused);
+        pauseButton.setText(paused ? "Resume" : "Pause");
+    }
+
+    private void flush() {
+        long total = buffer.getTotal();
+        status.setText("%d lines, %d errors%s".formatted(total, buffer.getCount(LogBuffer.Level.ERROR),
+                isPaused() ? ", paused at " + rendered : ""));
+        if (isPaused() || total == rendered) {
+            return;
+        }
+
+        pendingLines.clear();
+        pendingLevels.clear();
+        long next = buffer.copySince(rendered, pendingLines, pendingLevels);
+        long skipped = (next - rendered) - pendingLines.size();
+        rendered = next;
+        try {
+            if (skipped > 0) {
+                insert("... %d lines dropped\n".formatted(skipped), noteStyle);
+                documentLines++;
+            }
+            StringBuilder run = new StringBuilder();
+            for (int i = 0; i < pendingLines.size(); i++) {
+                run.append(pendingLines.get(i)).append('\n');
+                LogBuffer.Level level = pendingLevels.get(i);
+                if (i + 1 == pendingLines.size() || pendingLevels.get(i + 1) != level) {
+                    insert(run.toString(), styles[level.ordinal()]);
+                    run.setLength(0);
+                }
+            }
+            documentLines += pendingLines.size();
+            trim();
+        } catch (BadLocationException e) {
+            // Offsets only ever come from the document itself; if they are off anyway, start over
+            reset("... console reset after a failed edit: " + e.getMessage() + "\n");
+        }
+        textPane.setCaretPosition(doc.getLength());
+    }
+
+    // Empties the document, leaving only a note
+    private void reset(String note) {
+        try {
+            doc.remove(0, doc.getLength());
+            insert(note, noteStyle);
+            documentLines = 1;
+        } catch (BadLocationException e) {
+            documentLines = doc.getDefaultRootElement().getElementCount() - 1;
+        }
+    }
+
+    private void insert(String text, Style style) throws BadLocationException {
+        doc.insertString(doc.getLength(), text, style);
+    }
+
+    // Removes the oldest lines beyond the buffer capacity in one edit
+    private void trim() throws BadLocationException {
+        int excess = documentLines - buffer.getCapacity();
+        if (excess <= 0) {
+            return;
+        }
+        Element line = doc.getDefaultRootElement().getElement(excess);
+        doc.remove(0, line.getStartOffset());
+        documentLines -= excess;
+    }
+}
@@ -1,16 +1,8 @@
 package org.example;
 
-import com.illposed.osc.OSCBadDataEvent;
-import com.illposed.osc.OSCMessage;
-import com.illposed.osc.OSCPacketEvent;
-import com.illposed.osc.OSCPacketListener;
 import com.illposed.osc.transport.OSCPortIn;
 
 import javax.swing.*;
-import javax.swing.text.BadLocationException;
-import javax.swing.text.Style;
-import javax.swing.text.StyleConstants;
-import javax.swing.text.StyledDocument;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
@@ -18,38 +10,49 @@ import java.io.PrintStream;
 import java.net.InetSocketAddress;
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Main {
+    // Redraws happen at most this often, however fast messages arrive
+    private static final int FRAME_MILLIS = 16;
+
     private static final AtomicBoolean isStarted = new AtomicBoolean(false);
     private static Thread listenerThread;
     private static OSCPortIn oscPortIn;
     private static final InternalState internalState = new InternalState();
+    // Initial solves of a new maze; a newer /state/init cancels the one still running
+    private static final SolverService solver = new SolverService(1, 4, SolverService.OverflowPolicy.COALESCE);
+    private static final LogBuffer log = LogBuffer.getDefault();
+    private static final MazeSession session = new MazeSession(internalState, solver, log);
+    private static final IngestPipeline ingest = new IngestPipeline(session::apply, log);
+    // Runs on the listener thread and only forwards known addresses into the pipeline
+    private static final MessageHandler messageHandler = new MessageHandler();
+    private static GameGrid currentGrid;
+    private static GameGrid.Follow follow = GameGrid.Follow.NONE;
+    // Path reveal speeds offered in the View menu, in cells per second; 0 shows the path at once
+    private static final int[] PATH_SPEEDS = {100, 600, 5000, 0};
+    private static final PathAnimator animator = new PathAnimator(
+            Double.parseDouble(System.getProperty("mazer.cellsPerSecond", String.valueOf(PathAnimator.DEFAULT_CELLS_PER_SECOND))));
+
+    private static MetricsReporter metricsReporter;
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(Main::createAndShowGUI);
-    }
-
-    public static void addRandomColors(GridCell[][] grid) {
-        Random random = new Random();
-        var colors = new Color[]{Color.ORANGE, Color.BLUE, Color.GREEN};
-
-        for (var color : colors) {
-            boolean placed = false;
-            while (!placed) {
-                int row = random.nextInt(grid.length); // Random row
-                int col = random.nextInt(grid[0].length); // Random column
-
-                // Check if the cell is empty (assuming `getColor` returns null if unoccupied)
-                if (grid[row][col].getCellColor() == Color.WHITE) {
-                    grid[row][col].setCellColor(color);        // Set the logical color
-                    grid[row][col].setBackground(color);       // Update the visual background
-                    grid[row][col].repaint();                 // Ensure Swing repaints the cell
-                    placed = true; // Exit the loop
-                }
+        session.setWakeup(ingest::wake);
+        session.setBatchClock(ingest::getBatchNanos);
+        // -Dmazer.metrics.port=<port> sends the /metrics bundle to that local port
+        String metricsPort = System.getProperty("mazer.metrics.port");
+        if (metricsPort != null) {
+            try {
+                metricsReporter = new MetricsReporter(Integer.parseInt(metricsPort),
+                        Long.getLong("mazer.metrics.periodMillis", 1000), ingest, log);
+            } catch (IOException | IllegalArgumentException e) {
+                log.append(LogBuffer.Level.ERROR, "Metrics reporting disabled: " + e.getMessage());
             }
         }
+        for (String address : MazeSession.ADDRESSES) {
+            messageHandler.register(address, ingest::offer);
+        }
+        SwingUtilities.invokeLater(Main::createAndShowGUI);
     }
 
     private static void createAndShowGUI() {
@@ -60,10 +63,7 @@ public class Main {
 
         JTabbedPane tabbedPane = new JTabbedPane();
 
-        JTextPane textPane = new JTextPane();
-        textPane.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(textPane);
-        tabbedPane.addTab("Console", scrollPane);
+        tabbedPane.addTab("Console", new LogPane(log));
 
         JPanel visualizationPanel = new JPanel();
         visualizationPanel.setLayout(new BorderLayout());
@@ -75,51 +75,13 @@ public class Main {
         toggleButton.addActionListener((ActionEvent e) -> {
             if (isStarted.compareAndSet(false, true)) {
                 toggleButton.setText("Stop");
-                appendColoredText(textPane, "Started listening.\n", Color.BLACK);
+                log.append(LogBuffer.Level.INFO, "Started listening.");
                 try {
                     oscPortIn = new OSCPortIn(new InetSocketAddress("127.0.0.1", 9000));
-                    oscPortIn.addPacketListener(new OSCPacketListener() {
-                        @Override
-                        public void handlePacket(OSCPacketEvent oscPacketEvent) {
-                            if(oscPacketEvent.getPacket() instanceof OSCMessage msg){
-                                SwingUtilities.invokeLater(() -> {
-                                    appendColoredText(textPane, "Received Message on: %s\n".formatted(msg.getAddress()), Color.GREEN);
-                                    if(msg.getAddress().equals("/state/init/")){
-                                        int rows = (int)msg.getArguments().get(0);
-                                        int cols = (int)msg.getArguments().get(1);
-                                        internalState.field = new int[rows][cols];
-
-                                        visualizationPanel.removeAll();
-
-                                        var generator = new LabyrinthGenerator(rows, cols);
-                                        var gridPanel = generator.generateLabyrinth();
-                                        var grid = gridPanel.getGameCells();
-                                        addRandomColors(grid);
-
-                                        new Thread(() -> {
-                                            var optimalPath = AStarPathfinder.findOptimalPath(grid[0][0]);
-                                            assert optimalPath != null;
-                                            AStarPathfinder.visualizePath(optimalPath);
-                                        }).start();
-
-                                        visualizationPanel.add(gridPanel, BorderLayout.CENTER);
-                                        visualizationPanel.revalidate();
-                                        visualizationPanel.repaint();
-                                    }
-                                    if(msg.getAddress().equals("/state/update")){
-                                        // Handle state updates here
-                                    }
-                                });
-                            }
-                        }
-
-                        @Override
-                        public void handleBadData(OSCBadDataEvent oscBadDataEvent) {
-                            SwingUtilities.invokeLater(() ->
-                                    appendColoredText(textPane, oscBadDataEvent.toString(), Color.RED)
-                            );
-                        }
-                    });
+                    messageHandler.setBadDataHandler(event -> log.append(LogBuffer.Level.ERROR, event.toString()));
+                    messageHandler.setFallback(message -> log.append(LogBuffer.Level.ERROR,
+                            "No route for message on: " + message.getAddress()));
+                    oscPortIn.addPacketListener(messageHandler);
                 } catch (Exception ex) {
                     throw new RuntimeException(ex);
                 }
@@ -132,7 +94,7 @@ public class Main {
             } else {
                 toggleButton.setText("Start OSC Listener");
                 isStarted.set(false);
-                appendColoredText(textPane, "Stopped listening.\n", Color.BLACK);
+                log.append(LogBuffer.Level.INFO, "Stopped listening.");
                 try {
                     oscPortIn.close();
                 } catch (IOException ex) {
@@ -143,22 +105,85 @@ public class Main {
 
         toggleButton.doClick();
 
+        JMenu viewMenu = new JMenu("View");
+        JMenuItem fitItem = new JMenuItem("Fit maze");
+        fitItem.addActionListener(e -> {
+            if (currentGrid != null) {
+                currentGrid.fitToView();
+            }
+        });
+        viewMenu.add(fitItem);
+        viewMenu.addSeparator();
+        ButtonGroup followGroup = new ButtonGroup();
+        for (GameGrid.Follow mode : GameGrid.Follow.values()) {
+            String label = switch (mode) {
+                case NONE -> "Free view";
+                case ROBOT -> "Follow robot";
+                case PATH -> "Follow path";
+            };
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(label, mode == follow);
+            item.addActionListener(e -> {
+                follow = mode;
+                if (currentGrid != null) {
+                    currentGrid.setFollow(mode);
+                }
+            });
+            followGroup.add(item);
+            viewMenu.add(item);
+        }
+        viewMenu.addSeparator();
+        ButtonGroup speedGroup = new ButtonGroup();
+        for (int speed : PATH_SPEEDS) {
+            String label = speed == 0 ? "Show path at once" : "Path: %d cells/s".formatted(speed);
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(label, speed == animator.getCellsPerSecond());
+            item.addActionListener(e -> animator.setCellsPerSecond(speed));
+            speedGroup.add(item);
+            viewMenu.add(item);
+        }
+
+        new Timer(FRAME_MILLIS, e -> render(session.takeFrame(), visualizationPanel)).start();
+
         fileMenu.add(toggleButton);
         menuBar.add(fileMenu);
+        menuBar.add(viewMenu);
         frame.setJMenuBar(menuBar);
         frame.add(tabbedPane);
         frame.setVisible(true);
     }
 
-    private static void appendColoredText(JTextPane textPane, String text, Color color) {
-        StyledDocument doc = textPane.getStyledDocument();
-        Style style = textPane.addStyle("ColoredStyle", null);
-        StyleConstants.setForeground(style, color);
+    // Applies everything the session changed since the last frame
+    private static void render(MazeSession.RenderFrame frame, JPanel visualizationPanel) {
+        if (frame == null) {
+            return;
+        }
 
-        try {
-            doc.insertString(doc.getLength(), text, style);
-        } catch (BadLocationException e) {
-            e.printStackTrace();
+        if (frame.getMaze() != null) {
+            animator.cancel();
+            currentGrid = new GameGrid(frame.getMaze(), GameGrid.RenderMode.CANVAS);
+            currentGrid.setFollow(follow);
+            visualizationPanel.removeAll();
+            visualizationPanel.add(currentGrid, BorderLayout.CENTER);
+            visualizationPanel.revalidate();
+            visualizationPanel.repaint();
+        }
+        var gridPanel = currentGrid;
+        if (gridPanel == null) {
+            return;
+        }
+        frame.applyTo(gridPanel.getModel());
+        for (int cell : frame.getDirtyCells()) {
+            gridPanel.refreshCell(cell);
+        }
+        if (frame.getRobot() >= 0) {
+            gridPanel.setRobot(frame.getRobot());
+        }
+        if (frame.getPath() != null) {
+            animator.cancel();
+            gridPanel.clearPath();
+            animator.play(gridPanel, frame.getPath());
+        }
+        if (frame.getIngestNanos() != 0) {
+            Metrics.INGEST_TO_RENDER.record(System.nanoTime() - frame.getIngestNanos());
         }
     }
 }
\ No newline at end of file
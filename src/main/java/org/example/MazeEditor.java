@@ -0,0 +1,14 @@
+package org.example;
+
+// Changes to a maze and its targets that arrive over OSC; IncrementalPlanner repairs its search state with each
+public interface MazeEditor {
+    void setRobot(int cell);
+
+    void setWall(int cell, int direction, boolean open);
+
+    void moveTarget(int from, int to);
+
+    void addTarget(int cell, int targetId);
+
+    void removeTarget(int cell);
+}
@@ -0,0 +1,136 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Versioned binary maze file, little-endian throughout:
+ *
+ *   0  magic "MAZE", int version, int rows, int cols
+ *   16 long seed, int target count n, int reserved
+ *   32 long offset of the passage bits
+ *   40 n target cells (ints, ascending), n target ids (bytes), zero padding to 8 bytes
+ *   then the passage bits exactly as MazeModel packs them, 32 cells per long
+ *
+ * Opening maps the file and hands the passage section to MazeModel as is, so even the
+ * largest maze opens without reading it and is solved straight from the page cache.
+ * Cell indices are ints, which caps a maze at 2^31 cells and the passage section at 512 MB.
+ */
+public final class MazeFile {
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 'M' | 'A' << 8 | 'Z' << 16 | 'E' << 24;
+    private static final int HEADER_SIZE = 40;
+
+    private final Path path;
+    private final int version;
+    private final long seed;
+    private final MazeModel maze;
+
+    private MazeFile(Path path, int version, long seed, MazeModel maze) {
+        this.path = path;
+        this.version = version;
+        this.seed = seed;
+        this.maze = maze;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    // Seed the maze was generated from, as given to write
+    public long getSeed() {
+        return seed;
+    }
+
+    public MazeModel getMaze() {
+        return maze;
+    }
+
+    public static void write(Path path, MazeModel maze, long seed) throws IOException {
+        int targets = maze.getTargetCount();
+        long passageOffset = (HEADER_SIZE + 5L * targets + 7) & ~7L;
+        long size = passageOffset + 8L * MazeModel.wordCount(maze.getRows(), maze.getCols());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC).putInt(VERSION).putInt(maze.getRows()).putInt(maze.getCols());
+            out.putLong(seed).putInt(targets).putInt(0);
+            out.putLong(passageOffset);
+            for (int i = 0; i < targets; i++) {
+                out.putInt(maze.getTargetCell(i));
+            }
+            for (int i = 0; i < targets; i++) {
+                out.put((byte) maze.getTargetId(i));
+            }
+            maze.copyPassagesTo(out.position((int) passageOffset).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+            out.force();
+        }
+    }
+
+    // Read-only: changing a wall of the maze throws ReadOnlyBufferException
+    public static MazeFile open(Path path) throws IOException {
+        return open(path, false);
+    }
+
+    // With writable set, walls can be changed; changes stay in memory and never reach the file
+    public static MazeFile open(Path path, boolean writable) throws IOException {
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY;
+        try (FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException(path + " is not a maze file: only " + size + " bytes");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large for a maze file: " + size + " bytes");
+            }
+            MappedByteBuffer in = channel.map(mode, 0, size);
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            if (in.getInt() != MAGIC) {
+                throw new IOException(path + " is not a maze file");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + " has unsupported maze file version " + version);
+            }
+            int rows = in.getInt();
+            int cols = in.getInt();
+            long seed = in.getLong();
+            int targets = in.getInt();
+            in.getInt();
+            long passageOffset = in.getLong();
+            if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE || targets < 0
+                    || passageOffset < HEADER_SIZE + 5L * targets || (passageOffset & 7) != 0
+                    || passageOffset + 8L * MazeModel.wordCount(rows, cols) != size) {
+                throw new IOException(path + " has a corrupt maze file header");
+            }
+
+            int[] cells = new int[targets];
+            byte[] ids = new byte[targets];
+            for (int i = 0; i < targets; i++) {
+                cells[i] = in.getInt();
+            }
+            in.get(ids);
+            LongBuffer passages = in.position((int) passageOffset).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            MazeModel maze = new MazeModel(rows, cols, passages);
+            try {
+                maze.setTargets(cells, ids);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + " has corrupt targets", e);
+            }
+            return new MazeFile(path, version, seed, maze);
+        }
+    }
+}
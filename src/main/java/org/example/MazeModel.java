@@ -0,0 +1,318 @@
+package org.example;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Headless maze representation. Every cell stores two passage bits (open to the
+ * right, open downwards) packed into a long[]; targets are kept in a small sorted
+ * array of cell indices with their target ids. No AWT or Swing classes are touched.
+ * As a search graph every cell is a node with unit-weight edges along open passages.
+ * The passages either live on the heap or in a buffer mapped from a maze file (see MazeFile).
+ */
+public class MazeModel implements SearchGraph {
+    // Directions share their ordinal with Rotation: up, right, down, left
+    public static final int UP = 0;
+    public static final int RIGHT = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 3;
+    public static final int NO_TARGET = -1;
+
+    private static final int[] ROW_DELTA = {-1, 0, 1, 0};
+    private static final int[] COL_DELTA = {0, 1, 0, -1};
+
+    private static final int OPEN_RIGHT = 1;
+    private static final int OPEN_DOWN = 2;
+
+    private final int rows;
+    private final int cols;
+    private final long[] passages;          // 2 bits per cell, 32 cells per word; null when mapped
+    private final LongBuffer mapped;        // same layout, used when passages is null
+    private int[] targetCells = new int[0]; // sorted cell indices
+    private byte[] targetIds = new byte[0]; // target id of targetCells[i]
+
+    public MazeModel(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Maze must have at least one cell: " + rows + "x" + cols);
+        }
+        if ((long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze too large: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.passages = new long[wordCount(rows, cols)];
+        this.mapped = null;
+    }
+
+    // Maze whose passages are read from, and written to, the given buffer instead of the heap
+    MazeModel(int rows, int cols, LongBuffer passages) {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze size out of range: " + rows + "x" + cols);
+        }
+        if (passages.capacity() != wordCount(rows, cols)) {
+            throw new IllegalArgumentException("Passage buffer holds " + passages.capacity() + " words, "
+                    + rows + "x" + cols + " needs " + wordCount(rows, cols));
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.passages = null;
+        this.mapped = passages;
+    }
+
+    // Independent heap copy of the passages and targets, e.g. for a view read on another thread
+    public MazeModel copy() {
+        MazeModel copy = new MazeModel(rows, cols);
+        copyPassagesTo(LongBuffer.wrap(copy.passages));
+        copy.targetCells = targetCells.clone();
+        copy.targetIds = targetIds.clone();
+        return copy;
+    }
+
+    // Number of longs holding the passage bits of a rows x cols maze
+    static int wordCount(int rows, int cols) {
+        return (int) (((long) rows * cols + 31) >>> 5);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getCellCount() {
+        return rows * cols;
+    }
+
+    public int index(int row, int col) {
+        return row * cols + col;
+    }
+
+    public int row(int cell) {
+        return cell / cols;
+    }
+
+    public int col(int cell) {
+        return cell % cols;
+    }
+
+    public static int rowDelta(int direction) {
+        return ROW_DELTA[direction];
+    }
+
+    public static int colDelta(int direction) {
+        return COL_DELTA[direction];
+    }
+
+    public static int opposite(int direction) {
+        return (direction + 2) & 3;
+    }
+
+    // Index of the adjacent cell in the given direction, or -1 outside the grid
+    public int neighbor(int cell, int direction) {
+        return switch (direction) {
+            case UP -> cell >= cols ? cell - cols : -1;
+            case DOWN -> cell < rows * cols - cols ? cell + cols : -1;
+            case LEFT -> cell % cols != 0 ? cell - 1 : -1;
+            case RIGHT -> cell % cols != cols - 1 ? cell + 1 : -1;
+            default -> throw new IllegalArgumentException("Unknown direction: " + direction);
+        };
+    }
+
+    public boolean isOpen(int cell, int direction) {
+        return switch (direction) {
+            case RIGHT -> (bits(cell) & OPEN_RIGHT) != 0;
+            case DOWN -> (bits(cell) & OPEN_DOWN) != 0;
+            case LEFT -> cell % cols != 0 && (bits(cell - 1) & OPEN_RIGHT) != 0;
+            case UP -> cell >= cols && (bits(cell - cols) & OPEN_DOWN) != 0;
+            default -> throw new IllegalArgumentException("Unknown direction: " + direction);
+        };
+    }
+
+    // Opens or closes the wall between a cell and its neighbour; walls on the border stay closed
+    public void setOpen(int cell, int direction, boolean open) {
+        int other = neighbor(cell, direction);
+        if (other < 0) {
+            if (open) {
+                throw new IllegalArgumentException("Cannot open the outer wall of cell " + cell);
+            }
+            return;
+        }
+        switch (direction) {
+            case RIGHT -> setBits(cell, OPEN_RIGHT, open);
+            case DOWN -> setBits(cell, OPEN_DOWN, open);
+            case LEFT -> setBits(other, OPEN_RIGHT, open);
+            case UP -> setBits(other, OPEN_DOWN, open);
+        }
+    }
+
+    // Writes the reachable neighbours of a cell into out and returns how many there are
+    public int openNeighbors(int cell, int[] out) {
+        int count = 0;
+        int col = cell % cols;
+        if (cell >= cols && (bits(cell - cols) & OPEN_DOWN) != 0) out[count++] = cell - cols;
+        int own = bits(cell);
+        if ((own & OPEN_RIGHT) != 0) out[count++] = cell + 1;
+        if ((own & OPEN_DOWN) != 0) out[count++] = cell + cols;
+        if (col != 0 && (bits(cell - 1) & OPEN_RIGHT) != 0) out[count++] = cell - 1;
+        return count;
+    }
+
+    @Override
+    public MazeModel getMaze() {
+        return this;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return getCellCount();
+    }
+
+    @Override
+    public int cellOf(int node) {
+        return node;
+    }
+
+    @Override
+    public int nodeOf(int cell) {
+        return cell;
+    }
+
+    @Override
+    public int getMaxDegree() {
+        return 4;
+    }
+
+    @Override
+    public int edges(int node, int[] targets, int[] weights) {
+        int count = openNeighbors(node, targets);
+        for (int i = 0; i < count; i++) {
+            weights[i] = 1;
+        }
+        return count;
+    }
+
+    @Override
+    public void appendEdge(int from, int to, int weight, int[] path, int offset) {
+        path[offset] = to;
+    }
+
+    public int degree(int cell) {
+        int degree = 0;
+        for (int direction = 0; direction < 4; direction++) {
+            if (isOpen(cell, direction)) degree++;
+        }
+        return degree;
+    }
+
+    private int bits(int cell) {
+        return (int) (word(cell >>> 5) >>> ((cell & 31) << 1)) & 3;
+    }
+
+    private long word(int index) {
+        return passages != null ? passages[index] : mapped.get(index);
+    }
+
+    private void setBits(int cell, int mask, boolean set) {
+        long shifted = (long) mask << ((cell & 31) << 1);
+        long word = word(cell >>> 5);
+        word = set ? word | shifted : word & ~shifted;
+        if (passages != null) {
+            passages[cell >>> 5] = word;
+        } else {
+            mapped.put(cell >>> 5, word);
+        }
+    }
+
+    // Copies the packed passage bits into out, which must have room for wordCount longs
+    void copyPassagesTo(LongBuffer out) {
+        if (passages != null) {
+            out.put(passages);
+        } else {
+            out.put(mapped.duplicate().clear());
+        }
+    }
+
+    // Target ids are small non-negative integers; the view maps them to colours
+    public void setTarget(int cell, int targetId) {
+        if (targetId < 0 || targetId >= Long.SIZE) {
+            throw new IllegalArgumentException("Target id out of range: " + targetId);
+        }
+        int pos = Arrays.binarySearch(targetCells, cell);
+        if (pos >= 0) {
+            targetIds[pos] = (byte) targetId;
+            return;
+        }
+        int insert = -pos - 1;
+        int[] cells = new int[targetCells.length + 1];
+        byte[] ids = new byte[targetIds.length + 1];
+        System.arraycopy(targetCells, 0, cells, 0, insert);
+        System.arraycopy(targetIds, 0, ids, 0, insert);
+        cells[insert] = cell;
+        ids[insert] = (byte) targetId;
+        System.arraycopy(targetCells, insert, cells, insert + 1, targetCells.length - insert);
+        System.arraycopy(targetIds, insert, ids, insert + 1, targetIds.length - insert);
+        targetCells = cells;
+        targetIds = ids;
+    }
+
+    // Replaces all targets at once; cells must be sorted ascending without duplicates
+    void setTargets(int[] cells, byte[] ids) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] < 0 || cells[i] >= getCellCount() || (i > 0 && cells[i] <= cells[i - 1])) {
+                throw new IllegalArgumentException("Target cells must be sorted cell indices: " + cells[i]);
+            }
+            if (ids[i] < 0 || ids[i] >= Long.SIZE) {
+                throw new IllegalArgumentException("Target id out of range: " + ids[i]);
+            }
+        }
+        targetCells = cells.clone();
+        targetIds = ids.clone();
+    }
+
+    public void clearTarget(int cell) {
+        int pos = Arrays.binarySearch(targetCells, cell);
+        if (pos < 0) {
+            return;
+        }
+        int[] cells = new int[targetCells.length - 1];
+        byte[] ids = new byte[targetIds.length - 1];
+        System.arraycopy(targetCells, 0, cells, 0, pos);
+        System.arraycopy(targetIds, 0, ids, 0, pos);
+        System.arraycopy(targetCells, pos + 1, cells, pos, cells.length - pos);
+        System.arraycopy(targetIds, pos + 1, ids, pos, ids.length - pos);
+        targetCells = cells;
+        targetIds = ids;
+    }
+
+    public int targetAt(int cell) {
+        int pos = Arrays.binarySearch(targetCells, cell);
+        return pos >= 0 ? targetIds[pos] : NO_TARGET;
+    }
+
+    public boolean isTarget(int cell) {
+        return Arrays.binarySearch(targetCells, cell) >= 0;
+    }
+
+    public int getTargetCount() {
+        return targetCells.length;
+    }
+
+    public int getTargetCell(int i) {
+        return targetCells[i];
+    }
+
+    public int getTargetId(int i) {
+        return targetIds[i];
+    }
+
+    // Bitmask of every target id placed in the maze
+    public long getTargetIdMask() {
+        long mask = 0;
+        for (byte id : targetIds) {
+            mask |= 1L << id;
+        }
+        return mask;
+    }
+}
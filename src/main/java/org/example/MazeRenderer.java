@@ -0,0 +1,329 @@
+package org.example;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Painting behind GameGrid's canvas mode. The view is a window onto the maze that can be
+ * panned and zoomed; only the cells inside the painted area are drawn, so the cost of a
+ * frame depends on the component size, not on the maze size.
+ *
+ * Cell colours live in a one-pixel-per-cell image. Zoomed out below one pixel per cell, a
+ * mipmap level of that image is drawn instead, where every pixel is the darkest of the cells
+ * it covers so paths and targets stay visible. Walls are drawn from four pixels per cell on,
+ * from cached tiles that are redrawn only when a wall inside them changes.
+ */
+final class MazeRenderer {
+    // Pixels per cell of the zoom steps from 0 up; step -k shows mipmap level k
+    private static final int[] ZOOM_PIXELS = {1, 2, 3, 4, 6, 8, 12, 16, 24, 32, 48, 64};
+    private static final int WALL_MIN_PIXELS = 4;
+    private static final int TILE_PIXELS = 256;
+    private static final int MAX_TILES = 128;
+    private static final Color WALL_COLOR = Color.RED;
+    private static final Color ROBOT_COLOR = Color.DARK_GRAY;
+
+    private final MazeModel model;
+    private final JComponent view;
+    private final int rows;
+    private final int cols;
+    private final int[] colors;             // colour of every cell, backing array of levels[0]
+    private final BufferedImage[] levels;   // level k has one pixel per 2^k x 2^k cells; built on demand
+    private final int[][] levelPixels;
+    private int builtLevels = 1;
+    private final Map<Long, BufferedImage> wallTiles = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+
+    private int zoomStep;
+    private double originX;                 // screen position of the top left corner of cell 0
+    private double originY;
+    private boolean placed;
+    private int robot = -1;
+
+    MazeRenderer(MazeModel model, JComponent view) {
+        this.model = model;
+        this.view = view;
+        this.rows = model.getRows();
+        this.cols = model.getCols();
+        int levelCount = 1;
+        while ((rows - 1 >> (levelCount - 1)) > 0 || (cols - 1 >> (levelCount - 1)) > 0) {
+            levelCount++;
+        }
+        levels = new BufferedImage[levelCount];
+        levelPixels = new int[levelCount][];
+        levels[0] = new BufferedImage(cols, rows, BufferedImage.TYPE_INT_RGB);
+        levelPixels[0] = ((DataBufferInt) levels[0].getRaster().getDataBuffer()).getData();
+        colors = levelPixels[0];
+    }
+
+    int getColor(int index) {
+        return colors[index];
+    }
+
+    // Sets a colour without repainting; callers repaint the changed area
+    void setColor(int index, int rgb) {
+        if (colors[index] == rgb) {
+            return;
+        }
+        colors[index] = rgb;
+        int row = model.row(index);
+        int col = model.col(index);
+        for (int k = 1; k < builtLevels; k++) {
+            row >>= 1;
+            col >>= 1;
+            updateLevelPixel(k, row, col);
+        }
+    }
+
+    // The walls of a cell changed; its tiles and those of its neighbours are redrawn on the next paint
+    void wallsChanged(int index) {
+        invalidateTile(index);
+        for (int direction = 0; direction < 4; direction++) {
+            int neighbor = model.neighbor(index, direction);
+            if (neighbor >= 0) {
+                invalidateTile(neighbor);
+            }
+        }
+    }
+
+    int getRobot() {
+        return robot;
+    }
+
+    void setRobot(int cell) {
+        if (cell == robot) {
+            return;
+        }
+        if (robot >= 0) {
+            repaintCells(model.row(robot), model.col(robot), model.row(robot), model.col(robot));
+        }
+        robot = cell;
+        if (cell >= 0) {
+            repaintCells(model.row(cell), model.col(cell), model.row(cell), model.col(cell));
+        }
+    }
+
+    // Zooms by the given number of steps, keeping the cell under the screen point in place
+    void zoom(int steps, int x, int y) {
+        int step = Math.max(1 - levels.length, Math.min(ZOOM_PIXELS.length - 1, zoomStep + steps));
+        if (step == zoomStep) {
+            return;
+        }
+        double before = cellPixels();
+        double cellX = (x - originX) / before;
+        double cellY = (y - originY) / before;
+        setZoomStep(step);
+        originX = x - cellX * cellPixels();
+        originY = y - cellY * cellPixels();
+        view.repaint();
+    }
+
+    void pan(int dx, int dy) {
+        originX += dx;
+        originY += dy;
+        view.repaint();
+    }
+
+    // Largest zoom at which the whole maze fits the view, centred
+    void fit() {
+        showCells(0, 0, rows - 1, cols - 1, true);
+    }
+
+    // Centres the view on a cell, keeping the zoom
+    void centerOn(int index) {
+        originX = view.getWidth() / 2.0 - (model.col(index) + 0.5) * cellPixels();
+        originY = view.getHeight() / 2.0 - (model.row(index) + 0.5) * cellPixels();
+        placed = true;
+        view.repaint();
+    }
+
+    // Brings a block of cells into view. Zooms out if it does not fit; zooms in as far as it fits if asked to
+    void showCells(int minRow, int minCol, int maxRow, int maxCol, boolean zoomIn) {
+        int width = Math.max(1, view.getWidth());
+        int height = Math.max(1, view.getHeight());
+        int step = zoomIn ? ZOOM_PIXELS.length - 1 : zoomStep;
+        while (step > 1 - levels.length && ((maxCol - minCol + 1) * pixelsAt(step) > width
+                || (maxRow - minRow + 1) * pixelsAt(step) > height)) {
+            step--;
+        }
+        setZoomStep(step);
+        double pixels = cellPixels();
+        originX = width / 2.0 - (minCol + maxCol + 1) / 2.0 * pixels;
+        originY = height / 2.0 - (minRow + maxRow + 1) / 2.0 * pixels;
+        placed = true;
+        view.repaint();
+    }
+
+    private void setZoomStep(int step) {
+        if (step != zoomStep) {
+            zoomStep = step;
+            wallTiles.clear();
+        }
+    }
+
+    double cellPixels() {
+        return pixelsAt(zoomStep);
+    }
+
+    private static double pixelsAt(int step) {
+        return step >= 0 ? ZOOM_PIXELS[step] : 1.0 / (1 << -step);
+    }
+
+    // Repaints the screen area of a block of cells, including their walls
+    void repaintCells(int minRow, int minCol, int maxRow, int maxCol) {
+        double pixels = cellPixels();
+        int x = (int) Math.floor(originX + minCol * pixels);
+        int y = (int) Math.floor(originY + minRow * pixels);
+        int width = (int) Math.ceil((maxCol - minCol + 1) * pixels) + 2;
+        int height = (int) Math.ceil((maxRow - minRow + 1) * pixels) + 2;
+        view.repaint(x - 1, y - 1, width + 1, height + 1);
+    }
+
+    void paint(Graphics2D g) {
+        if (!placed) {
+            fit();
+        }
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, view.getWidth(), view.getHeight());
+        }
+        int ox = (int) Math.round(originX);
+        int oy = (int) Math.round(originY);
+
+        // One image pixel per cell, or per block of cells when zoomed out
+        int level = Math.max(0, -zoomStep);
+        int pixels = zoomStep >= 0 ? ZOOM_PIXELS[zoomStep] : 1;
+        BufferedImage image = level(level);
+        int c0 = Math.max(0, Math.floorDiv(clip.x - ox, pixels));
+        int r0 = Math.max(0, Math.floorDiv(clip.y - oy, pixels));
+        int c1 = Math.min(image.getWidth(), Math.floorDiv(clip.x + clip.width - ox, pixels) + 1);
+        int r1 = Math.min(image.getHeight(), Math.floorDiv(clip.y + clip.height - oy, pixels) + 1);
+        if (c0 >= c1 || r0 >= r1) {
+            return;
+        }
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(image, ox + c0 * pixels, oy + r0 * pixels, ox + c1 * pixels, oy + r1 * pixels,
+                c0, r0, c1, r1, null);
+
+        if (level == 0 && pixels >= WALL_MIN_PIXELS) {
+            int tileCells = Math.max(1, TILE_PIXELS / pixels);
+            for (int tileRow = r0 / tileCells; tileRow <= (r1 - 1) / tileCells; tileRow++) {
+                for (int tileCol = c0 / tileCells; tileCol <= (c1 - 1) / tileCells; tileCol++) {
+                    g.drawImage(wallTile(tileRow, tileCol, tileCells, pixels),
+                            ox + tileCol * tileCells * pixels, oy + tileRow * tileCells * pixels, null);
+                }
+            }
+        }
+
+        if (robot >= 0) {
+            double size = Math.max(3, cellPixels() * 0.6);
+            double x = originX + (model.col(robot) + 0.5) * cellPixels() - size / 2;
+            double y = originY + (model.row(robot) + 0.5) * cellPixels() - size / 2;
+            g.setColor(ROBOT_COLOR);
+            g.fillOval((int) Math.round(x), (int) Math.round(y), (int) Math.round(size), (int) Math.round(size));
+        }
+    }
+
+    // Mipmap level, built from the one below when first needed
+    private BufferedImage level(int k) {
+        while (builtLevels <= k) {
+            int level = builtLevels;
+            int width = (cols + (1 << level) - 1) >> level;
+            int height = (rows + (1 << level) - 1) >> level;
+            if (levels[level] == null) {
+                levels[level] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                levelPixels[level] = ((DataBufferInt) levels[level].getRaster().getDataBuffer()).getData();
+            }
+            builtLevels++;
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    updateLevelPixel(level, row, col);
+                }
+            }
+        }
+        return levels[k];
+    }
+
+    // Darkest of the up to four pixels below, so thin paths and targets survive zooming out
+    private void updateLevelPixel(int level, int row, int col) {
+        BufferedImage below = levels[level - 1];
+        int[] source = levelPixels[level - 1];
+        int darkest = 0xFFFFFF;
+        int darkestLuma = Integer.MAX_VALUE;
+        for (int r = row * 2; r < Math.min(row * 2 + 2, below.getHeight()); r++) {
+            for (int c = col * 2; c < Math.min(col * 2 + 2, below.getWidth()); c++) {
+                int rgb = source[r * below.getWidth() + c];
+                int luma = ((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114;
+                if (luma < darkestLuma) {
+                    darkestLuma = luma;
+                    darkest = rgb;
+                }
+            }
+        }
+        levelPixels[level][row * levels[level].getWidth() + col] = darkest;
+    }
+
+    private void invalidateTile(int index) {
+        if (zoomStep < 0 || ZOOM_PIXELS[zoomStep] < WALL_MIN_PIXELS) {
+            return;
+        }
+        int tileCells = Math.max(1, TILE_PIXELS / ZOOM_PIXELS[zoomStep]);
+        wallTiles.remove(tileKey(model.row(index) / tileCells, model.col(index) / tileCells));
+    }
+
+    private static long tileKey(int tileRow, int tileCol) {
+        return (long) tileRow << 32 | tileCol;
+    }
+
+    // Transparent image with the walls of a block of cells, edges included. Corner posts are
+    // always drawn, so a single wall can be opened or closed without touching the others.
+    private BufferedImage wallTile(int tileRow, int tileCol, int tileCells, int pixels) {
+        long key = tileKey(tileRow, tileCol);
+        BufferedImage tile = wallTiles.get(key);
+        if (tile != null) {
+            return tile;
+        }
+        int rowStart = tileRow * tileCells;
+        int colStart = tileCol * tileCells;
+        int tileRows = Math.min(tileCells, rows - rowStart);
+        int tileCols = Math.min(tileCells, cols - colStart);
+        tile = new BufferedImage(tileCols * pixels + 1, tileRows * pixels + 1, BufferedImage.TYPE_INT_ARGB);
+        int[] data = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+        int stride = tile.getWidth();
+        int wall = WALL_COLOR.getRGB();
+
+        for (int row = 0; row < tileRows; row++) {
+            for (int col = 0; col < tileCols; col++) {
+                int index = model.index(rowStart + row, colStart + col);
+                int x = col * pixels;
+                int y = row * pixels;
+                for (int direction = 0; direction < 4; direction++) {
+                    if (model.isOpen(index, direction)) {
+                        continue;
+                    }
+                    for (int i = 1; i < pixels; i++) {
+                        switch (direction) {
+                            case MazeModel.UP -> data[y * stride + x + i] = wall;
+                            case MazeModel.DOWN -> data[(y + pixels) * stride + x + i] = wall;
+                            case MazeModel.LEFT -> data[(y + i) * stride + x] = wall;
+                            default -> data[(y + i) * stride + x + pixels] = wall;
+                        }
+                    }
+                }
+                data[y * stride + x] = wall;
+                data[y * stride + x + pixels] = wall;
+                data[(y + pixels) * stride + x] = wall;
+                data[(y + pixels) * stride + x + pixels] = wall;
+            }
+        }
+        wallTiles.put(key, tile);
+        return tile;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example;
+
+// Receives a maze one row at a time, top to bottom
+public interface MazeRowSink {
+    /**
+     * Accept the passages of one row. The arrays are reused for the next row, so copy
+     * them if they need to outlive the call.
+     *
+     * @param row       Index of the row, starting at 0.
+     * @param openRight openRight[col] is true if the cell is open towards col + 1.
+     * @param openDown  openDown[col] is true if the cell is open towards the next row.
+     */
+    void acceptRow(int row, boolean[] openRight, boolean[] openDown);
+}
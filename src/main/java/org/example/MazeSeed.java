@@ -0,0 +1,64 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * A 64-bit seed and the tree of independent random streams derived from it. Children are
+ * derived from the parent value and an index, never from a shared generator, so maze 17 of a
+ * batch, or the stream of row 5 or target 2 of that maze, comes out the same whichever thread
+ * asks first and whether or not anything else was generated before.
+ */
+public final class MazeSeed {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // Kinds of child streams, so e.g. region 0 and target 0 do not share a stream
+    private static final long MAZE = 1;
+    private static final long GENERATION = 2;
+    private static final long REGION = 3;
+    private static final long TARGET = 4;
+
+    private final long value;
+
+    public MazeSeed(long value) {
+        this.value = value;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    // Seed of maze number index of a batch or session started from this seed
+    public MazeSeed forMaze(long index) {
+        return child(MAZE, index);
+    }
+
+    // Stream for carving the whole maze
+    public SplittableRandom generation() {
+        return new SplittableRandom(child(GENERATION, 0).value);
+    }
+
+    // Stream for one region of the maze, e.g. one row of Eller's algorithm
+    public SplittableRandom region(long region) {
+        return new SplittableRandom(child(REGION, region).value);
+    }
+
+    // Stream placing the target with the given id
+    public SplittableRandom target(int targetId) {
+        return new SplittableRandom(child(TARGET, targetId).value);
+    }
+
+    private MazeSeed child(long kind, long index) {
+        return new MazeSeed(mix(value + mix(kind * GOLDEN_GAMMA + index) * GOLDEN_GAMMA));
+    }
+
+    // SplitMix64 finaliser: spreads nearby inputs over the whole 64-bit range
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toUnsignedString(value, 16);
+    }
+}
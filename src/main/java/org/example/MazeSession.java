@@ -0,0 +1,452 @@
+package org.example;
+
+import com.illposed.osc.OSCMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Maze state behind the OSC interface. Runs on the ingest worker: every batch of messages is
+ * applied to the maze and its planner, the route is replanned once per batch and whatever the
+ * view has to redraw is collected into a RenderFrame. The EDT takes the accumulated frame at
+ * most once per screen frame, so Swing only ever sees the final diffs. Log lines go to a
+ * LogBuffer, which the console renders on its own timer.
+ */
+public class MazeSession {
+    public static final String INIT = "/state/init";
+    public static final String UPDATE = "/state/update";
+    public static final String ROBOT = "/state/robot";
+    public static final String TARGET = "/state/target";
+    public static final List<String> ADDRESSES = List.of(INIT, UPDATE, ROBOT, TARGET);
+
+    // Board values of the InternalState: the passage bits of MazeModel and the target id + 1
+    // (0 for none) in bits 8-15. The board mirrors the maze; blob deltas on UPDATE change it.
+    public static final int OPEN_RIGHT = 1;
+    public static final int OPEN_DOWN = 2;
+    public static final int TARGET_SHIFT = 8;
+
+    // Everything the view has to redraw since it last took a frame. The worker keeps changing
+    // its own maze, so the frame carries a copy of a new maze and the state of every changed
+    // cell as it was when the change was made; the view applies them to its copy.
+    public static final class RenderFrame {
+        private MazeModel maze;
+        private int[] dirtyCells = new int[16];
+        private byte[] dirtyWalls = new byte[16];   // open directions as bits 0-3
+        private byte[] dirtyTargets = new byte[16]; // target id or NO_TARGET
+        private int dirtyCount;
+        private int[] path;
+        private int robot = -1;
+        private long ingestNanos;
+
+        // Copy of a new maze that replaced the shown one, owned by the view; null if it is still the same
+        public MazeModel getMaze() {
+            return maze;
+        }
+
+        // Cells whose walls or target changed, possibly with repeats
+        public int[] getDirtyCells() {
+            return Arrays.copyOf(dirtyCells, dirtyCount);
+        }
+
+        // Brings the view's copy of the maze up to date with the changed cells, in the order of the changes
+        public void applyTo(MazeModel view) {
+            for (int i = 0; i < dirtyCount; i++) {
+                int cell = dirtyCells[i];
+                for (int direction = 0; direction < 4; direction++) {
+                    view.setOpen(cell, direction, (dirtyWalls[i] >> direction & 1) != 0);
+                }
+                if (dirtyTargets[i] == MazeModel.NO_TARGET) {
+                    view.clearTarget(cell);
+                } else {
+                    view.setTarget(cell, dirtyTargets[i]);
+                }
+            }
+        }
+
+        // Latest route, null if it did not change
+        public int[] getPath() {
+            return path;
+        }
+
+        // Robot cell the latest route starts from, -1 if unchanged
+        public int getRobot() {
+            return robot;
+        }
+
+        // When the oldest message behind this frame entered the ingest queue, 0 if unknown
+        public long getIngestNanos() {
+            return ingestNanos;
+        }
+
+        void replaceMaze(MazeModel maze) {
+            this.maze = maze;
+            dirtyCount = 0;
+            path = null;
+            robot = -1;
+        }
+
+        // Records the current state of a cell of the worker's maze
+        void markDirty(MazeModel source, int cell) {
+            int walls = 0;
+            for (int direction = 0; direction < 4; direction++) {
+                if (source.isOpen(cell, direction)) {
+                    walls |= 1 << direction;
+                }
+            }
+            add(cell, (byte) walls, (byte) source.targetAt(cell));
+        }
+
+        private void add(int cell, byte walls, byte target) {
+            if (dirtyCount == dirtyCells.length) {
+                dirtyCells = Arrays.copyOf(dirtyCells, dirtyCount * 2);
+                dirtyWalls = Arrays.copyOf(dirtyWalls, dirtyCount * 2);
+                dirtyTargets = Arrays.copyOf(dirtyTargets, dirtyCount * 2);
+            }
+            dirtyCells[dirtyCount] = cell;
+            dirtyWalls[dirtyCount] = walls;
+            dirtyTargets[dirtyCount] = target;
+            dirtyCount++;
+        }
+
+        // Folds a later frame into this one
+        void merge(RenderFrame later) {
+            if (later.maze != null) {
+                replaceMaze(later.maze);
+            }
+            for (int i = 0; i < later.dirtyCount; i++) {
+                add(later.dirtyCells[i], later.dirtyWalls[i], later.dirtyTargets[i]);
+            }
+            if (later.path != null) {
+                path = later.path;
+            }
+            if (later.robot >= 0) {
+                robot = later.robot;
+            }
+            if (ingestNanos == 0) {
+                ingestNanos = later.ingestNanos;
+            }
+        }
+    }
+
+    private final InternalState internalState;
+    private final SolverService solver;
+    private final LogBuffer log;
+    private final MessageHandler routes = new MessageHandler();
+    private volatile Runnable wakeup = () -> { };
+    private volatile LongSupplier batchClock = () -> 0;
+
+    // Session seed (-Dmazer.seed, random otherwise); maze n of the session comes from seed.forMaze(n)
+    private final MazeSeed seed = new MazeSeed(Long.getLong("mazer.seed", System.nanoTime() ^ MazeSeed.mix(System.currentTimeMillis())));
+
+    // Changes that arrive while a planner is being built; past this many it is rebuilt instead
+    private static final int MAX_PENDING_CHANGES = 1 << 16;
+
+    // Only touched on the ingest worker
+    private long mazeCount;
+    private MazeModel maze;
+    private final MazeEditor mazeEditor = new MazeChanges();
+    private int robot;
+    private IncrementalPlanner planner;
+    private MazeModel building;   // copy the planner being built works on, null if none is
+    private final List<Consumer<MazeEditor>> pendingChanges = new ArrayList<>();
+    private RenderFrame next;
+    private boolean replanNeeded;
+
+    // Planner finished by the solver, or the copy whose planner failed, waiting for the worker
+    private final AtomicReference<IncrementalPlanner> built = new AtomicReference<>();
+    private final AtomicReference<MazeModel> failed = new AtomicReference<>();
+    // Frame waiting for the EDT
+    private RenderFrame published;
+
+    public MazeSession(InternalState internalState, SolverService solver, LogBuffer log) {
+        this.internalState = internalState;
+        this.solver = solver;
+        this.log = log;
+        routes.register(INIT, this::onInit);
+        routes.register(UPDATE, this::onUpdate);
+        routes.register(ROBOT, this::onRobot);
+        routes.register(TARGET, this::onTarget);
+    }
+
+    // Routes of the messages this session applies, with their counters
+    public MessageHandler getRoutes() {
+        return routes;
+    }
+
+    // How to get the worker to run apply once a background solve finished
+    public void setWakeup(Runnable wakeup) {
+        this.wakeup = wakeup;
+    }
+
+    // Where apply learns when its batch entered the ingest queue, see IngestPipeline.getBatchNanos
+    public void setBatchClock(LongSupplier batchClock) {
+        this.batchClock = batchClock;
+    }
+
+    // Called on the EDT; null if nothing changed since the last frame
+    public synchronized RenderFrame takeFrame() {
+        RenderFrame frame = published;
+        published = null;
+        return frame;
+    }
+
+    // Batch handler of the ingest pipeline
+    public void apply(List<OSCMessage> batch) {
+        next = new RenderFrame();
+        next.ingestNanos = batchClock.getAsLong();
+        replanNeeded = handOver();
+        for (OSCMessage message : batch) {
+            log.append(LogBuffer.Level.MESSAGE, "Received Message on: " + message.getAddress());
+            try {
+                routes.dispatch(message);
+            } catch (RuntimeException e) {
+                log.append(LogBuffer.Level.ERROR, "Bad %s message: %s".formatted(message.getAddress(), e.getMessage()));
+            }
+        }
+        if (replanNeeded && planner != null) {
+            next.path = planner.replan();
+            next.robot = planner.getRobot();
+        }
+        internalState.publish();
+        publish(next);
+        next = null;
+    }
+
+    private synchronized void publish(RenderFrame frame) {
+        if (published == null) {
+            published = frame;
+        } else {
+            published.merge(frame);
+        }
+    }
+
+    // Installs the planner built for the current maze and replays the changes that arrived meanwhile
+    private boolean handOver() {
+        MazeModel failedCopy = failed.getAndSet(null);
+        if (failedCopy != null && failedCopy == building) {
+            // Go on without a planner: the maze already has every change, there is just no route
+            building = null;
+            pendingChanges.clear();
+        }
+        IncrementalPlanner ready = built.getAndSet(null);
+        if (ready == null || ready.getMaze() != building) {
+            return false; // Nothing new, or built for a maze that was replaced since
+        }
+        planner = ready;
+        building = null;
+        for (var change : pendingChanges) {
+            try {
+                change.accept(ready);
+            } catch (RuntimeException e) {
+                log.append(LogBuffer.Level.ERROR, "Bad queued change: " + e.getMessage());
+            }
+        }
+        pendingChanges.clear();
+        return true;
+    }
+
+    private void onInit(OSCMessage message) {
+        init(MessageHandler.intArg(message, 0), MessageHandler.intArg(message, 1));
+    }
+
+    // row, col, direction (0 up, 1 right, 2 down, 3 left), open (0 or 1);
+    // or a single blob with a board delta (see InternalState.applyDelta and the board values above)
+    private void onUpdate(OSCMessage message) {
+        if (!message.getArguments().isEmpty() && message.getArguments().get(0) instanceof byte[]) {
+            onBoardDelta(MessageHandler.blobArg(message, 0));
+            return;
+        }
+        int cell = cellAt(MessageHandler.intArg(message, 0), MessageHandler.intArg(message, 1));
+        int direction = MessageHandler.intArg(message, 2);
+        boolean open = MessageHandler.boolArg(message, 3);
+        change(editor -> editor.setWall(cell, direction, open));
+        cellChanged(cell);
+    }
+
+    // The delta is checked against the maze and applied to the board as a whole; every changed
+    // cell is then read back from the published snapshot and applied to the maze and its planner
+    private void onBoardDelta(byte[] delta) {
+        if (maze == null) {
+            throw new IllegalStateException("No maze yet");
+        }
+        int[] cells = internalState.applyDelta(delta, this::checkBoardValue);
+        InternalState.Snapshot board = internalState.getSnapshot();
+        for (int cell : cells) {
+            int value = board.get(cell);
+            change(editor -> applyBoardValue(editor, cell, value));
+            cellChanged(cell);
+        }
+    }
+
+    private void checkBoardValue(int cell, int value) {
+        int targetId = (value >>> TARGET_SHIFT) - 1;
+        if ((value & ~(OPEN_RIGHT | OPEN_DOWN | 0xFF << TARGET_SHIFT)) != 0 || targetId >= Long.SIZE) {
+            throw new IllegalArgumentException("Bad board value " + value + " for cell " + cell);
+        }
+        if ((value & OPEN_RIGHT) != 0 && maze.neighbor(cell, MazeModel.RIGHT) < 0
+                || (value & OPEN_DOWN) != 0 && maze.neighbor(cell, MazeModel.DOWN) < 0) {
+            throw new IllegalArgumentException("Board value " + value + " opens the outer wall of cell " + cell);
+        }
+    }
+
+    private void applyBoardValue(MazeEditor editor, int cell, int value) {
+        if (maze.neighbor(cell, MazeModel.RIGHT) >= 0) {
+            editor.setWall(cell, MazeModel.RIGHT, (value & OPEN_RIGHT) != 0);
+        }
+        if (maze.neighbor(cell, MazeModel.DOWN) >= 0) {
+            editor.setWall(cell, MazeModel.DOWN, (value & OPEN_DOWN) != 0);
+        }
+        int targetId = (value >>> TARGET_SHIFT) - 1;
+        if (targetId < 0) {
+            editor.removeTarget(cell);
+        } else {
+            editor.addTarget(cell, targetId);
+        }
+    }
+
+    // Board value of a cell of the maze
+    public static int boardValue(MazeModel maze, int cell) {
+        int value = (maze.targetAt(cell) + 1) << TARGET_SHIFT;
+        if (maze.isOpen(cell, MazeModel.RIGHT)) {
+            value |= OPEN_RIGHT;
+        }
+        if (maze.isOpen(cell, MazeModel.DOWN)) {
+            value |= OPEN_DOWN;
+        }
+        return value;
+    }
+
+    // A cell of the maze changed: redraw it and bring the board up to date
+    private void cellChanged(int cell) {
+        next.markDirty(maze, cell);
+        syncBoard(cell);
+        // The walls above and left of a cell are stored with the neighbours there
+        syncBoard(maze.neighbor(cell, MazeModel.UP));
+        syncBoard(maze.neighbor(cell, MazeModel.LEFT));
+    }
+
+    private void syncBoard(int cell) {
+        if (cell >= 0) {
+            internalState.set(cell, boardValue(maze, cell));
+        }
+    }
+
+    // row, col
+    private void onRobot(OSCMessage message) {
+        int cell = cellAt(MessageHandler.intArg(message, 0), MessageHandler.intArg(message, 1));
+        change(editor -> editor.setRobot(cell));
+    }
+
+    // fromRow, fromCol, toRow, toCol
+    private void onTarget(OSCMessage message) {
+        int from = cellAt(MessageHandler.intArg(message, 0), MessageHandler.intArg(message, 1));
+        int to = cellAt(MessageHandler.intArg(message, 2), MessageHandler.intArg(message, 3));
+        change(editor -> editor.moveTarget(from, to));
+        cellChanged(from);
+        cellChanged(to);
+    }
+
+    private void init(int rows, int cols) {
+        internalState.init(rows, cols);
+        MazeSeed mazeSeed = seed.forMaze(mazeCount++);
+        MazeModel created = new LabyrinthGenerator(rows, cols, mazeSeed).generate();
+        LabyrinthGenerator.placeTargets(created, GameGrid.TARGET_COLORS.length, mazeSeed);
+        log.append(LogBuffer.Level.INFO, "Maze %dx%d from seed %s".formatted(rows, cols, mazeSeed));
+        maze = created;
+        for (int cell = 0; cell < created.getCellCount(); cell++) {
+            syncBoard(cell);
+        }
+        internalState.publish();
+        robot = created.index(0, 0);
+        next.replaceMaze(created.copy());
+        buildPlanner();
+    }
+
+    // Building the distance fields is the slow part, so the solver builds them on a copy while
+    // the maze keeps following the messages; a newer build cancels this one
+    private void buildPlanner() {
+        MazeModel copy = maze.copy();
+        int start = robot;
+        planner = null;
+        building = copy;
+        pendingChanges.clear();
+        solver.submit(this, () -> new IncrementalPlanner(copy, start))
+                .whenComplete((ready, failure) -> {
+                    if (failure == null) {
+                        built.set(ready);
+                    } else if (failure instanceof CancellationException) {
+                        return;
+                    } else {
+                        log.append(LogBuffer.Level.ERROR, "Planner for the %dx%d maze failed, no route until the next init: %s"
+                                .formatted(copy.getRows(), copy.getCols(), failure));
+                        failed.set(copy);
+                    }
+                    wakeup.run();
+                });
+    }
+
+    // Applies a change to the maze now and to its planner now or, while it is built, once it is ready
+    private void change(Consumer<MazeEditor> change) {
+        change.accept(mazeEditor);
+        if (planner != null) {
+            change.accept(planner);
+            replanNeeded = true;
+        } else if (building != null) {
+            if (pendingChanges.size() < MAX_PENDING_CHANGES) {
+                pendingChanges.add(change);
+            } else {
+                log.append(LogBuffer.Level.INFO, "%d changes while the planner was built, building it again"
+                        .formatted(pendingChanges.size()));
+                buildPlanner();
+            }
+        }
+    }
+
+    // The maze side of every change; the planner repeats it on its own copy
+    private final class MazeChanges implements MazeEditor {
+        @Override
+        public void setRobot(int cell) {
+            robot = cell;
+        }
+
+        @Override
+        public void setWall(int cell, int direction, boolean open) {
+            maze.setOpen(cell, direction, open);
+        }
+
+        @Override
+        public void moveTarget(int from, int to) {
+            int targetId = maze.targetAt(from);
+            if (targetId == MazeModel.NO_TARGET) {
+                throw new IllegalArgumentException("No target on cell " + from);
+            }
+            maze.clearTarget(from);
+            maze.setTarget(to, targetId);
+        }
+
+        @Override
+        public void addTarget(int cell, int targetId) {
+            maze.setTarget(cell, targetId);
+        }
+
+        @Override
+        public void removeTarget(int cell) {
+            maze.clearTarget(cell);
+        }
+    }
+
+    private int cellAt(int row, int col) {
+        if (maze == null) {
+            throw new IllegalStateException("No maze yet");
+        }
+        if (row < 0 || row >= maze.getRows() || col < 0 || col >= maze.getCols()) {
+            throw new IllegalArgumentException("Cell " + row + "," + col + " is outside the maze");
+        }
+        return maze.index(row, col);
+    }
+}
@@ -1,17 +1,281 @@
 package org.example;
 
 import com.illposed.osc.OSCBadDataEvent;
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCPacket;
 import com.illposed.osc.OSCPacketEvent;
 import com.illposed.osc.OSCPacketListener;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Routes OSC messages to the handler registered for their address. Exact addresses are found
+ * with a single hash lookup; patterns with "*" segments ("/state/*") go into a segment trie that
+ * is only walked when no exact route matched. Routes are compiled into an immutable table on
+ * registration, so dispatching takes no lock and its cost does not grow with the number of routes.
+ *
+ * Addresses are normalised by dropping a trailing slash, "/state/init/" and "/state/init" are
+ * the same route. Handlers always see the normalised address.
+ */
 public class MessageHandler implements OSCPacketListener {
+    private static final String WILDCARD = "*";
+
+    // Handler of one address or pattern with its counters
+    private static final class Route {
+        final String pattern;
+        final Consumer<OSCMessage> handler;
+        final LongAdder matched = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        Route(String pattern, Consumer<OSCMessage> handler) {
+            this.pattern = pattern;
+            this.handler = handler;
+        }
+    }
+
+    private static final class TrieNode {
+        final Map<String, TrieNode> children = new HashMap<>();
+        TrieNode wildcard;
+        Route route;
+    }
+
+    // Immutable once published
+    private static final class Table {
+        final Map<String, Route> exact;
+        final TrieNode patterns;  // null if there are no patterns
+
+        Table(Map<String, Route> exact, TrieNode patterns) {
+            this.exact = exact;
+            this.patterns = patterns;
+        }
+    }
+
+    private final Map<String, Route> routes = new HashMap<>();
+    private volatile Table table = new Table(Map.of(), null);
+    private volatile Consumer<OSCMessage> fallback = message -> { };
+    private volatile Consumer<OSCBadDataEvent> badDataHandler = event -> { };
+    private final LongAdder unmatched = new LongAdder();
+    private final LongAdder badData = new LongAdder();
+
+    // Registers or replaces the handler of an address; a segment of "*" matches any one segment
+    public synchronized void register(String pattern, Consumer<OSCMessage> handler) {
+        String normalized = normalize(pattern);
+        if (normalized.isEmpty() || normalized.charAt(0) != '/') {
+            throw new IllegalArgumentException("OSC address must start with '/': " + pattern);
+        }
+        routes.put(normalized, new Route(normalized, handler));
+        table = compile();
+    }
+
+    public synchronized void unregister(String pattern) {
+        if (routes.remove(normalize(pattern)) != null) {
+            table = compile();
+        }
+    }
+
+    // Receives the messages no route matched
+    public void setFallback(Consumer<OSCMessage> fallback) {
+        this.fallback = fallback;
+    }
+
+    public void setBadDataHandler(Consumer<OSCBadDataEvent> badDataHandler) {
+        this.badDataHandler = badDataHandler;
+    }
+
+    private Table compile() {
+        Map<String, Route> exact = new HashMap<>();
+        TrieNode root = null;
+        for (Route route : routes.values()) {
+            if (!route.pattern.contains(WILDCARD)) {
+                exact.put(route.pattern, route);
+                continue;
+            }
+            if (root == null) {
+                root = new TrieNode();
+            }
+            TrieNode node = root;
+            for (String segment : route.pattern.substring(1).split("/", -1)) {
+                if (WILDCARD.equals(segment)) {
+                    if (node.wildcard == null) {
+                        node.wildcard = new TrieNode();
+                    }
+                    node = node.wildcard;
+                } else {
+                    node = node.children.computeIfAbsent(segment, key -> new TrieNode());
+                }
+            }
+            node.route = route;
+        }
+        return new Table(exact, root);
+    }
+
     @Override
     public void handlePacket(OSCPacketEvent oscPacketEvent) {
-
+        dispatch(oscPacketEvent.getPacket());
     }
 
     @Override
     public void handleBadData(OSCBadDataEvent oscBadDataEvent) {
+        badData.increment();
+        badDataHandler.accept(oscBadDataEvent);
+    }
+
+    // Dispatches a message, or every message of a bundle
+    public void dispatch(OSCPacket packet) {
+        if (packet instanceof OSCMessage message) {
+            dispatch(message);
+        } else if (packet instanceof OSCBundle bundle) {
+            for (OSCPacket inner : bundle.getPackets()) {
+                dispatch(inner);
+            }
+        }
+    }
+
+    // Returns whether a route matched; exceptions of the handler are counted and rethrown
+    public boolean dispatch(OSCMessage message) {
+        String address = message.getAddress();
+        String normalized = normalize(address);
+        if (normalized != address) {
+            message = new OSCMessage(normalized, message.getArguments());
+        }
+
+        Table current = table;
+        Route route = current.exact.get(normalized);
+        if (route == null && current.patterns != null) {
+            route = matchPattern(current.patterns, normalized);
+        }
+        if (route == null) {
+            unmatched.increment();
+            fallback.accept(message);
+            return false;
+        }
+
+        route.matched.increment();
+        try {
+            route.handler.accept(message);
+        } catch (RuntimeException e) {
+            route.failed.increment();
+            throw e;
+        }
+        return true;
+    }
+
+    // Walks the trie segment by segment, preferring literal segments over wildcards
+    private static Route matchPattern(TrieNode node, String address) {
+        return matchFrom(node, address, 1);
+    }
+
+    private static Route matchFrom(TrieNode node, String address, int from) {
+        if (from > address.length()) {
+            return node.route;
+        }
+        int end = address.indexOf('/', from);
+        if (end < 0) {
+            end = address.length();
+        }
+        TrieNode literal = node.children.get(address.substring(from, end));
+        if (literal != null) {
+            Route route = matchFrom(literal, address, end + 1);
+            if (route != null) {
+                return route;
+            }
+        }
+        return node.wildcard == null ? null : matchFrom(node.wildcard, address, end + 1);
+    }
+
+    // Same string if it is already normalised
+    static String normalize(String address) {
+        int length = address.length();
+        return length > 1 && address.charAt(length - 1) == '/' ? address.substring(0, length - 1) : address;
+    }
+
+    public long getMatchedCount(String pattern) {
+        Route route = routeOf(pattern);
+        return route == null ? 0 : route.matched.sum();
+    }
+
+    public long getFailedCount(String pattern) {
+        Route route = routeOf(pattern);
+        return route == null ? 0 : route.failed.sum();
+    }
+
+    public long getUnmatchedCount() {
+        return unmatched.sum();
+    }
+
+    public long getBadDataCount() {
+        return badData.sum();
+    }
+
+    private synchronized Route routeOf(String pattern) {
+        return routes.get(normalize(pattern));
+    }
+
+    // Typed argument extractors: check arity and type once and fail with the address in the message
+
+    public static int intArg(OSCMessage message, int index) {
+        Object value = arg(message, index);
+        if (value instanceof Integer i) {
+            return i;
+        }
+        if (value instanceof Long l && l == (int) (long) l) {
+            return (int) (long) l;
+        }
+        throw badArg(message, index, "an int", value);
+    }
+
+    public static float floatArg(OSCMessage message, int index) {
+        Object value = arg(message, index);
+        if (value instanceof Float f) {
+            return f;
+        }
+        if (value instanceof Number n) {
+            return n.floatValue();
+        }
+        throw badArg(message, index, "a float", value);
+    }
+
+    // OSC has no boolean type on every sender; 0 is false, any other int true
+    public static boolean boolArg(OSCMessage message, int index) {
+        Object value = arg(message, index);
+        if (value instanceof Boolean b) {
+            return b;
+        }
+        return intArg(message, index) != 0;
+    }
+
+    public static String stringArg(OSCMessage message, int index) {
+        Object value = arg(message, index);
+        if (value instanceof CharSequence s) {
+            return s.toString();
+        }
+        throw badArg(message, index, "a string", value);
+    }
+
+    public static byte[] blobArg(OSCMessage message, int index) {
+        Object value = arg(message, index);
+        if (value instanceof byte[] b) {
+            return b;
+        }
+        throw badArg(message, index, "a blob", value);
+    }
+
+    private static Object arg(OSCMessage message, int index) {
+        List<Object> args = message.getArguments();
+        if (index >= args.size()) {
+            throw new IllegalArgumentException(message.getAddress() + " needs at least " + (index + 1)
+                    + " arguments, got " + args.size());
+        }
+        return args.get(index);
+    }
 
+    private static IllegalArgumentException badArg(OSCMessage message, int index, String expected, Object value) {
+        return new IllegalArgumentException("Argument " + index + " of " + message.getAddress() + " must be "
+                + expected + ", got " + (value == null ? "null" : value.getClass().getSimpleName()));
     }
 }
@@ -0,0 +1,130 @@
+package org.example;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latency histograms for the pathfinders, the generator and the
+ * ingest-to-render path. Probes are off unless enabled (-Dmazer.metrics=true, or setEnabled);
+ * while off, the solvers only keep a few local counters and never touch these. Searches
+ * count in locals and publish once per solve into striped adders, so the hot loops stay free
+ * of shared writes. A JFR SolveEvent is emitted per solve whenever a recording asks for it.
+ */
+public final class Metrics {
+    // Counters of one pathfinder
+    public static final class SolverProbe {
+        private final String name;
+        private final LongAdder solves = new LongAdder();
+        private final LongAdder expanded = new LongAdder();
+        private final LongAdder generated = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final LongAdder heuristicEvaluations = new LongAdder();
+        private final LongAccumulator peakOpen = new LongAccumulator(Math::max, 0);
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        SolverProbe(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSolveCount() {
+            return solves.sum();
+        }
+
+        public long getExpandedCount() {
+            return expanded.sum();
+        }
+
+        public long getGeneratedCount() {
+            return generated.sum();
+        }
+
+        // Successors dropped because their state was already closed or reached as cheaply
+        public long getDuplicateCount() {
+            return duplicates.sum();
+        }
+
+        public long getHeuristicEvaluationCount() {
+            return heuristicEvaluations.sum();
+        }
+
+        // Largest open set (heap or BFS frontier) of any solve so far
+        public long getPeakOpen() {
+            return peakOpen.get();
+        }
+
+        // Solve time in nanoseconds
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        // Publishes one finished solve; startNanos comes from Metrics.start(), event from Metrics.beginSolve()
+        void record(SolveEvent event, long startNanos, int nodes, int pathLength, long expanded, long generated,
+                    long duplicates, long heuristicEvaluations, long peakOpen) {
+            lastExpanded.get()[0] = expanded;
+            if (enabled) {
+                solves.increment();
+                this.expanded.add(expanded);
+                this.generated.add(generated);
+                this.duplicates.add(duplicates);
+                this.heuristicEvaluations.add(heuristicEvaluations);
+                this.peakOpen.accumulate(peakOpen);
+                if (startNanos != 0) {
+                    latency.record(System.nanoTime() - startNanos);
+                }
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.solver = name;
+                event.nodes = nodes;
+                event.pathLength = pathLength;
+                event.expanded = expanded;
+                event.generated = generated;
+                event.peakOpen = peakOpen;
+                event.commit();
+            }
+        }
+    }
+
+    public static final SolverProbe ASTAR = new SolverProbe("astar");
+    public static final SolverProbe GRID = new SolverProbe("grid");
+    // Nanoseconds per generated maze
+    public static final LatencyHistogram GENERATION = new LatencyHistogram();
+    // Nanoseconds from a message entering the ingest queue until its frame was rendered
+    public static final LatencyHistogram INGEST_TO_RENDER = new LatencyHistogram();
+
+    private static volatile boolean enabled = Boolean.getBoolean("mazer.metrics");
+    // Nodes expanded by the last solve of each thread, kept whether or not metrics are on
+    private static final ThreadLocal<long[]> lastExpanded = ThreadLocal.withInitial(() -> new long[1]);
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    // Nodes the last pathfinder run on the calling thread expanded
+    public static long getLastExpandedCount() {
+        return lastExpanded.get()[0];
+    }
+
+    // Start time for a probe, or 0 while metrics are off
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // Flight Recorder event timing one solve
+    static SolveEvent beginSolve() {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,93 @@
+package org.example;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCPacket;
+import com.illposed.osc.OSCSerializeException;
+import com.illposed.osc.transport.OSCPortOut;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the Metrics as one OSC bundle to a local port at a fixed period. Every value is a
+ * message of its own, /metrics/<area>/<name> with one long argument; latencies are in
+ * nanoseconds. Creating a reporter turns the metrics on.
+ */
+public class MetricsReporter implements AutoCloseable {
+    public static final String ADDRESS = "/metrics";
+
+    private final OSCPortOut port;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "metrics-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final IngestPipeline ingest;
+    private final LogBuffer log;
+
+    // ingest may be null if there is no pipeline to report on
+    public MetricsReporter(int localPort, long periodMillis, IngestPipeline ingest, LogBuffer log) throws IOException {
+        if (periodMillis < 1) {
+            throw new IllegalArgumentException("Period must be positive: " + periodMillis);
+        }
+        this.port = new OSCPortOut(InetAddress.getLoopbackAddress(), localPort);
+        this.ingest = ingest;
+        this.log = log;
+        Metrics.setEnabled(true);
+        timer.scheduleAtFixedRate(this::send, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // The bundle as it would be sent now
+    public OSCBundle snapshot() {
+        List<OSCPacket> messages = new ArrayList<>();
+        for (Metrics.SolverProbe probe : List.of(Metrics.ASTAR, Metrics.GRID)) {
+            String prefix = ADDRESS + "/" + probe.getName() + "/";
+            add(messages, prefix + "solves", probe.getSolveCount());
+            add(messages, prefix + "expanded", probe.getExpandedCount());
+            add(messages, prefix + "generated", probe.getGeneratedCount());
+            add(messages, prefix + "duplicates", probe.getDuplicateCount());
+            add(messages, prefix + "heuristic", probe.getHeuristicEvaluationCount());
+            add(messages, prefix + "peakOpen", probe.getPeakOpen());
+            addLatency(messages, prefix + "latency", probe.getLatency());
+        }
+        addLatency(messages, ADDRESS + "/generator/latency", Metrics.GENERATION);
+        addLatency(messages, ADDRESS + "/render/latency", Metrics.INGEST_TO_RENDER);
+        if (ingest != null) {
+            add(messages, ADDRESS + "/ingest/received", ingest.getReceivedCount());
+            add(messages, ADDRESS + "/ingest/dropped", ingest.getDroppedCount());
+            add(messages, ADDRESS + "/ingest/queued", ingest.getQueuedCount());
+        }
+        return new OSCBundle(messages);
+    }
+
+    private static void add(List<OSCPacket> messages, String address, long value) {
+        messages.add(new OSCMessage(address, List.of(value)));
+    }
+
+    private static void addLatency(List<OSCPacket> messages, String prefix, LatencyHistogram histogram) {
+        add(messages, prefix + "/count", histogram.getCount());
+        add(messages, prefix + "/p50", histogram.getValueAtPercentile(50));
+        add(messages, prefix + "/p99", histogram.getValueAtPercentile(99));
+        add(messages, prefix + "/max", histogram.getMax());
+    }
+
+    private void send() {
+        try {
+            port.send(snapshot());
+        } catch (IOException | OSCSerializeException e) {
+            log.append(LogBuffer.Level.ERROR, "Could not send metrics: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        timer.shutdownNow();
+        port.close();
+    }
+}
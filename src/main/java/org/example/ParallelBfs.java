@@ -0,0 +1,235 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous BFS over the cells of a maze on a fork/join pool. Each level splits the
+ * frontier into chunks; every chunk claims unvisited neighbours in a shared atomic bitmap and
+ * appends them to its own buffer, and the buffers are concatenated in chunk order into the
+ * next frontier. Small frontiers, which is every level of a perfect maze, are expanded on the
+ * calling thread, so the pool only pays off on open or braided mazes with wide fronts.
+ *
+ * Distances are the same whatever the thread count. Where a choice exists, such as the next
+ * step towards a source, it is derived from the distances afterwards, never from which
+ * thread claimed a cell first, so all results are deterministic.
+ */
+public class ParallelBfs {
+    public static final int UNREACHABLE = -1;
+
+    private static final int CHUNK = 4096;
+    private static final int PARALLEL_THRESHOLD = 2 * CHUNK; // smaller frontiers stay on the calling thread
+
+    private final ForkJoinPool pool;
+
+    public ParallelBfs() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelBfs(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Steps from the nearest source to every cell, UNREACHABLE where no source can be reached
+    public int[] distances(MazeModel maze, int... sources) {
+        int[] distances = new int[maze.getCellCount()];
+        distances(maze, sources, distances);
+        return distances;
+    }
+
+    // Same as above into a caller-provided array of getCellCount() ints; returns the largest distance
+    public int distances(MazeModel maze, int[] sources, int[] distances) {
+        int cellCount = maze.getCellCount();
+        if (distances.length < cellCount) {
+            throw new IllegalArgumentException("Distance array holds " + distances.length + " of " + cellCount + " cells");
+        }
+        Arrays.fill(distances, 0, cellCount, UNREACHABLE);
+        AtomicLongArray visited = new AtomicLongArray((cellCount + 63) >>> 6);
+        int[] frontier = new int[Math.max(16, sources.length)];
+        int size = 0;
+        for (int source : sources) {
+            if (source < 0 || source >= cellCount) {
+                throw new IllegalArgumentException("Source cell out of range: " + source);
+            }
+            if (claim(visited, source)) {
+                distances[source] = 0;
+                frontier[size++] = source;
+            }
+        }
+
+        int level = 0;
+        int[][] buffers = new int[0][];
+        while (size > 0) {
+            Cancellation.checkpoint();
+            level++;
+            int chunks = size < PARALLEL_THRESHOLD ? 1 : (size + CHUNK - 1) / CHUNK;
+            if (buffers.length < chunks) {
+                buffers = Arrays.copyOf(buffers, chunks);
+            }
+            int[] counts = new int[chunks];
+            Level task = new Level(maze, visited, distances, frontier, size, level, buffers, counts, 0, chunks);
+            if (chunks == 1) {
+                task.compute();
+            } else {
+                pool.invoke(task);
+            }
+
+            int next = 0;
+            for (int c = 0; c < chunks; c++) {
+                next += counts[c];
+            }
+            if (frontier.length < next) {
+                frontier = new int[Math.max(next, frontier.length * 2)];
+            }
+            size = 0;
+            for (int c = 0; c < chunks; c++) {
+                System.arraycopy(buffers[c], 0, frontier, size, counts[c]);
+                size += counts[c];
+            }
+        }
+        return level - 1;
+    }
+
+    /**
+     * Direction of the first step from every cell towards the nearest source, 2 bits per cell
+     * as in DistanceOracle. Among equally short ways the first of up, right, down, left wins.
+     * Sources and unreachable cells get 0; check their distance first.
+     */
+    public long[] nextDirections(MazeModel maze, int[] distances) {
+        long[] directions = new long[(maze.getCellCount() + 31) >>> 5];
+        int words = directions.length;
+        if (words <= PARALLEL_THRESHOLD / 32) {
+            fillDirections(maze, distances, directions, 0, words);
+        } else {
+            pool.invoke(new Directions(maze, distances, directions, 0, words));
+        }
+        return directions;
+    }
+
+    private static boolean claim(AtomicLongArray visited, int cell) {
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        long old = visited.get(word);
+        while ((old & bit) == 0) {
+            long witness = visited.compareAndExchange(word, old, old | bit);
+            if (witness == old) {
+                return true;
+            }
+            old = witness;
+        }
+        return false;
+    }
+
+    private static void fillDirections(MazeModel maze, int[] distances, long[] directions, int fromWord, int toWord) {
+        int cellCount = maze.getCellCount();
+        for (int w = fromWord; w < toWord; w++) {
+            long word = 0;
+            int end = Math.min(cellCount, (w + 1) << 5);
+            for (int cell = w << 5; cell < end; cell++) {
+                int distance = distances[cell];
+                if (distance <= 0) {
+                    continue;
+                }
+                for (int direction = 0; direction < 4; direction++) {
+                    if (maze.isOpen(cell, direction) && distances[maze.neighbor(cell, direction)] == distance - 1) {
+                        word |= (long) direction << ((cell & 31) << 1);
+                        break;
+                    }
+                }
+            }
+            directions[w] = word;
+        }
+    }
+
+    // Expands the frontier chunks [from, to) of one level
+    private static final class Level extends RecursiveAction {
+        private final MazeModel maze;
+        private final AtomicLongArray visited;
+        private final int[] distances;
+        private final int[] frontier;
+        private final int size;
+        private final int level;
+        private final int[][] buffers;
+        private final int[] counts;
+        private final int from;
+        private final int to;
+
+        Level(MazeModel maze, AtomicLongArray visited, int[] distances, int[] frontier, int size, int level,
+              int[][] buffers, int[] counts, int from, int to) {
+            this.maze = maze;
+            this.visited = visited;
+            this.distances = distances;
+            this.frontier = frontier;
+            this.size = size;
+            this.level = level;
+            this.buffers = buffers;
+            this.counts = counts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Level(maze, visited, distances, frontier, size, level, buffers, counts, from, mid),
+                        new Level(maze, visited, distances, frontier, size, level, buffers, counts, mid, to));
+                return;
+            }
+            // A single chunk takes the whole (small) frontier
+            int start = counts.length == 1 ? 0 : from * CHUNK;
+            int end = counts.length == 1 ? size : Math.min(size, start + CHUNK);
+            int[] buffer = buffers[from];
+            int needed = 4 * (end - start);
+            if (buffer == null || buffer.length < needed) {
+                buffer = new int[Math.max(needed, 64)];
+                buffers[from] = buffer;
+            }
+            int count = 0;
+            int[] neighbors = new int[4];
+            for (int i = start; i < end; i++) {
+                int n = maze.openNeighbors(frontier[i], neighbors);
+                for (int k = 0; k < n; k++) {
+                    int neighbor = neighbors[k];
+                    if (claim(visited, neighbor)) {
+                        distances[neighbor] = level;
+                        buffer[count++] = neighbor;
+                    }
+                }
+            }
+            counts[from] = count;
+        }
+    }
+
+    // Fills the direction words [from, to)
+    private static final class Directions extends RecursiveAction {
+        private static final int WORDS = CHUNK / 32;
+
+        private final MazeModel maze;
+        private final int[] distances;
+        private final long[] directions;
+        private final int from;
+        private final int to;
+
+        Directions(MazeModel maze, int[] distances, long[] directions, int from, int to) {
+            this.maze = maze;
+            this.distances = distances;
+            this.directions = directions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= WORDS) {
+                fillDirections(maze, distances, directions, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Directions(maze, distances, directions, from, mid),
+                    new Directions(maze, distances, directions, mid, to));
+        }
+    }
+}
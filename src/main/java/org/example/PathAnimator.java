@@ -0,0 +1,129 @@
+package org.example;
+
+import javax.swing.*;
+import java.util.List;
+
+/**
+ * Reveals a path on a GameGrid over time. A Swing timer ticks once per frame and colours
+ * every cell that is due at the configured rate in one batch, so a long path costs one pass
+ * and one repaint per frame however many cells it has. All methods must be called on the EDT.
+ */
+public class PathAnimator {
+    public static final double DEFAULT_CELLS_PER_SECOND = 600;
+    private static final int FRAME_MILLIS = 16;
+
+    private static PathAnimator defaultAnimator;
+
+    private final Timer timer = new Timer(FRAME_MILLIS, e -> tick());
+    private double cellsPerSecond;
+    private GameGrid grid;
+    private int[] path;
+    private long[] visited;
+    private int revealed;
+    private long startNanos;
+
+    public PathAnimator() {
+        this(DEFAULT_CELLS_PER_SECOND);
+    }
+
+    // A rate of 0 or less, or infinity, shows the whole path in the next frame
+    public PathAnimator(double cellsPerSecond) {
+        this.cellsPerSecond = cellsPerSecond;
+        timer.setCoalesce(true);
+    }
+
+    // Shared by the visualizePath helpers of the pathfinders
+    public static PathAnimator getDefault() {
+        if (defaultAnimator == null) {
+            defaultAnimator = new PathAnimator();
+        }
+        return defaultAnimator;
+    }
+
+    // Plays a path given as view cells with the default animator; callable from any thread
+    public static void animate(List<GridCell> path) {
+        if (path.isEmpty()) {
+            LogBuffer.getDefault().append(LogBuffer.Level.INFO, "No valid path found!");
+            return;
+        }
+        GameGrid grid = path.get(0).getGrid();
+        if (grid == null) {
+            throw new IllegalArgumentException("Cells are not part of a maze view");
+        }
+        int[] cells = new int[path.size()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = path.get(i).getIndex();
+        }
+        if (SwingUtilities.isEventDispatchThread()) {
+            getDefault().play(grid, cells);
+        } else {
+            SwingUtilities.invokeLater(() -> getDefault().play(grid, cells));
+        }
+    }
+
+    public double getCellsPerSecond() {
+        return cellsPerSecond;
+    }
+
+    // A running animation continues from the cells revealed so far at the new rate
+    public void setCellsPerSecond(double cellsPerSecond) {
+        this.cellsPerSecond = cellsPerSecond;
+        if (isRunning()) {
+            startNanos = System.nanoTime() - (long) (revealed / effectiveRate() * 1e9);
+        }
+    }
+
+    // Stops the current animation and starts revealing path on grid
+    public void play(GameGrid grid, int[] path) {
+        cancel();
+        if (path.length == 0) {
+            LogBuffer.getDefault().append(LogBuffer.Level.INFO, "No valid path found!");
+            return;
+        }
+        this.grid = grid;
+        this.path = path;
+        this.visited = new long[(grid.getModel().getCellCount() + 63) >>> 6];
+        revealed = 0;
+        startNanos = System.nanoTime();
+        grid.followPath(path);
+        timer.start();
+    }
+
+    // Stops where it is; the cells revealed so far stay coloured
+    public void cancel() {
+        timer.stop();
+        grid = null;
+        path = null;
+        visited = null;
+    }
+
+    // Reveals the rest of the path right away
+    public void finish() {
+        if (isRunning()) {
+            grid.paintPath(path, revealed, path.length, visited);
+            cancel();
+        }
+    }
+
+    public boolean isRunning() {
+        return path != null;
+    }
+
+    private double effectiveRate() {
+        return cellsPerSecond <= 0 ? Double.POSITIVE_INFINITY : cellsPerSecond;
+    }
+
+    private void tick() {
+        if (!isRunning()) {
+            timer.stop();
+            return;
+        }
+        double due = (System.nanoTime() - startNanos) / 1e9 * effectiveRate();
+        int target = due >= path.length ? path.length : Math.max(revealed + 1, (int) due);
+        grid.paintPath(path, revealed, target, visited);
+        revealed = target;
+        if (revealed == path.length) {
+            cancel();
+        }
+    }
+}
@@ -35,19 +35,22 @@ public class Robot {
     public HashSet<GridCell> cells = new HashSet<>();
 
     public Robot(int x, int y) {
+        this.x = x;
+        this.y = y;
         startingCell = new GridCell(x, y);
     }
 
     public void rotateRight(){
-        rotation.rotateRight();
+        rotation = rotation.rotateRight();
     }
     public void rotateLeft(){
-        rotation.rotateLeft();
+        rotation = rotation.rotateLeft();
     }
 
+    // Cell one step ahead in the current rotation; x is the row and y the column
     public GridCell move(){
-        int nextX = x;
-        int nextY = y;
+        int nextX = x + MazeModel.rowDelta(rotation.ordinal());
+        int nextY = y + MazeModel.colDelta(rotation.ordinal());
         GridCell nextCell = new GridCell(nextX, nextY);
         return nextCell;
     }
@@ -0,0 +1,246 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exact planner for the shortest walk from a start cell that visits one cell of every
+ * target id. One BFS from the start and one from each reachable target cell give the
+ * pairwise distance matrix; a Held-Karp DP over colour subsets picks the visit order,
+ * and the legs are stitched together from the direction fields recorded by the BFS passes.
+ * On giant mazes each pass is a ParallelBfs over the whole maze instead, so finding the
+ * reachable targets and the distances between them uses every core.
+ */
+public class RoutePlanner {
+    // Above this many cells (-Dmazer.parallelBfsCells) the passes run on ParallelBfs
+    public static final int PARALLEL_CELLS = Integer.getInteger("mazer.parallelBfsCells", 1 << 22);
+
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final MazeModel maze;
+    private final ParallelBfs parallel; // null for the sequential passes
+    private final int[] queue;    // sequential passes only
+    private final int[] stamps;   // BFS pass that last reached each cell
+    private final int[] field;    // parallel passes only: distances from the current source
+    private int pass;
+
+    private RoutePlanner(MazeModel maze, boolean parallel) {
+        this.maze = maze;
+        int cellCount = maze.getCellCount();
+        this.parallel = parallel ? new ParallelBfs() : null;
+        this.queue = parallel ? null : new int[cellCount];
+        this.stamps = parallel ? null : new int[cellCount];
+        this.field = parallel ? new int[cellCount] : null;
+    }
+
+    public static List<GridCell> planRoute(GridCell start) {
+        GameGrid grid = start.getGrid();
+        if (grid == null) {
+            throw new IllegalArgumentException("Cell " + start.x + "," + start.y + " is not part of a maze");
+        }
+        return grid.toCells(planRoute(grid.getModel(), start.getIndex()));
+    }
+
+    // Shortest walk from start through one cell of every target id; empty if there is none
+    public static int[] planRoute(MazeModel maze, int start) {
+        return planRoute(maze, start, maze.getCellCount() > PARALLEL_CELLS);
+    }
+
+    public static int[] planRoute(MazeModel maze, int start, boolean parallel) {
+        return new RoutePlanner(maze, parallel).plan(start);
+    }
+
+    private int[] plan(int start) {
+        long idMask = maze.getTargetIdMask();
+        int colorBits = Long.bitCount(idMask);
+        if (colorBits == 0) {
+            return new int[]{start};
+        }
+        if (colorBits >= Integer.SIZE - 1) {
+            throw new IllegalArgumentException("Too many target colours: " + colorBits);
+        }
+
+        // Node 0 is the start, nodes 1..n are the targets; each BFS records how to walk back to its source
+        int targetCount = maze.getTargetCount();
+        int[] nodes = new int[targetCount + 1];
+        nodes[0] = start;
+        for (int i = 0; i < targetCount; i++) {
+            nodes[i + 1] = maze.getTargetCell(i);
+        }
+        int[][] distances = new int[nodes.length][];
+        long[][] backDirections = new long[nodes.length][];
+
+        distances[0] = new int[nodes.length];
+        backDirections[0] = bfs(start, nodes, distances[0]);
+
+        // Only targets reachable from the start take part in the tour
+        int[] colorOf = new int[nodes.length];
+        long reachableIds = 0;
+        for (int i = 1; i < nodes.length; i++) {
+            int id = maze.getTargetId(i - 1);
+            colorOf[i] = 1 << Long.bitCount(idMask & ((1L << id) - 1));
+            if (distances[0][i] != UNREACHABLE) {
+                reachableIds |= 1L << id;
+                distances[i] = new int[nodes.length];
+                backDirections[i] = bfs(nodes[i], nodes, distances[i]);
+            }
+        }
+        if (reachableIds != idMask) {
+            return new int[0]; // Some colour cannot be reached
+        }
+
+        int[] order = solveOrder(nodes.length, colorBits, colorOf, distances);
+        return stitch(nodes, order, distances, backDirections);
+    }
+
+    // Held-Karp over colour subsets: best[mask][t] is the shortest walk that collected mask and ends at target t.
+    // Node 0 is the start; distances[t] is null for targets the start cannot reach.
+    static int[] solveOrder(int nodeCount, int colorBits, int[] colorOf, int[][] distances) {
+        int fullMask = (1 << colorBits) - 1;
+        int[][] best = new int[fullMask + 1][nodeCount];
+        int[][] previous = new int[fullMask + 1][nodeCount];
+        for (int[] row : best) {
+            Arrays.fill(row, UNREACHABLE);
+        }
+
+        for (int t = 1; t < nodeCount; t++) {
+            if (distances[t] != null) {
+                best[colorOf[t]][t] = distances[0][t];
+                previous[colorOf[t]][t] = 0;
+            }
+        }
+
+        for (int mask = 1; mask <= fullMask; mask++) {
+            for (int t = 1; t < nodeCount; t++) {
+                int cost = best[mask][t];
+                if (cost == UNREACHABLE) {
+                    continue;
+                }
+                for (int next = 1; next < nodeCount; next++) {
+                    if ((mask & colorOf[next]) != 0 || distances[next] == null) {
+                        continue;
+                    }
+                    int nextMask = mask | colorOf[next];
+                    int nextCost = cost + distances[t][next];
+                    if (nextCost < best[nextMask][next]) {
+                        best[nextMask][next] = nextCost;
+                        previous[nextMask][next] = t;
+                    }
+                }
+            }
+        }
+
+        int last = 1;
+        for (int t = 2; t < nodeCount; t++) {
+            if (best[fullMask][t] < best[fullMask][last]) {
+                last = t;
+            }
+        }
+
+        // Walk the DP back to get the visit order, start first
+        int[] order = new int[colorBits + 1];
+        int mask = fullMask;
+        for (int i = colorBits; i > 0; i--) {
+            order[i] = last;
+            int before = previous[mask][last];
+            mask &= ~colorOf[last];
+            last = before;
+        }
+        order[0] = 0;
+        return order;
+    }
+
+    private int[] stitch(int[] nodes, int[] order, int[][] distances, long[][] backDirections) {
+        int length = 1;
+        for (int i = 1; i < order.length; i++) {
+            length += distances[order[i - 1]][order[i]];
+        }
+
+        int[] path = new int[length];
+        path[0] = nodes[order[0]];
+        int end = 0;
+        for (int i = 1; i < order.length; i++) {
+            int from = order[i - 1];
+            int to = order[i];
+            int legLength = distances[from][to];
+            // Walk from the leg's end back to its source and write the cells in forward order
+            int cell = nodes[to];
+            for (int step = legLength; step > 0; step--) {
+                path[end + step] = cell;
+                cell = maze.neighbor(cell, direction(backDirections[from], cell));
+            }
+            end += legLength;
+        }
+        return path;
+    }
+
+    // BFS from source that stops once every node is reached; fills distances to the nodes and
+    // returns the direction from each reached cell towards its BFS parent, 2 bits per cell
+    private long[] bfs(int source, int[] nodes, int[] distances) {
+        if (parallel != null) {
+            return parallelBfs(source, nodes, distances);
+        }
+        pass++;
+        long[] back = new long[(maze.getCellCount() + 31) >>> 5];
+        Arrays.fill(distances, UNREACHABLE);
+
+        int remaining = nodes.length;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        stamps[source] = pass;
+
+        for (int level = 0; head < tail && remaining > 0; level++) {
+            int levelEnd = tail;
+            while (head < levelEnd) {
+                if ((head & Cancellation.CHECK_MASK) == 0) {
+                    Cancellation.checkpoint();
+                }
+                int cell = queue[head++];
+                remaining -= recordNodes(cell, level, nodes, distances);
+
+                for (int direction = 0; direction < 4; direction++) {
+                    if (!maze.isOpen(cell, direction)) {
+                        continue;
+                    }
+                    int neighbor = maze.neighbor(cell, direction);
+                    if (stamps[neighbor] != pass) {
+                        stamps[neighbor] = pass;
+                        back[neighbor >>> 5] |= (long) MazeModel.opposite(direction) << ((neighbor & 31) << 1);
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        return back;
+    }
+
+    // Same as bfs on the whole maze; the next step towards the source is the way back to it
+    private long[] parallelBfs(int source, int[] nodes, int[] distances) {
+        parallel.distances(maze, new int[]{source}, field);
+        for (int i = 0; i < nodes.length; i++) {
+            int distance = field[nodes[i]];
+            distances[i] = distance == ParallelBfs.UNREACHABLE ? UNREACHABLE : distance;
+        }
+        return parallel.nextDirections(maze, field);
+    }
+
+    // Targets are sorted by cell, so a cell matches the start and at most one target
+    private int recordNodes(int cell, int level, int[] nodes, int[] distances) {
+        int found = 0;
+        if (nodes[0] == cell) {
+            distances[0] = level;
+            found++;
+        }
+        int pos = Arrays.binarySearch(nodes, 1, nodes.length, cell);
+        if (pos > 0) {
+            distances[pos] = level;
+            found++;
+        }
+        return found;
+    }
+
+    private static int direction(long[] back, int cell) {
+        return (int) (back[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+    }
+}
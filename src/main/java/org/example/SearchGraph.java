@@ -0,0 +1,24 @@
+package org.example;
+
+// Graph the pathfinders search on: either every maze cell or a contracted junction graph.
+// Nodes are dense ints; every node sits on a maze cell, which carries its position and target id.
+interface SearchGraph {
+    MazeModel getMaze();
+
+    int getNodeCount();
+
+    int cellOf(int node);
+
+    // Node sitting on the cell, -1 if the cell was contracted away
+    int nodeOf(int cell);
+
+    // Upper bound on the number of edges leaving any node
+    int getMaxDegree();
+
+    // Writes the edges leaving node into targets and weights and returns how many there are
+    int edges(int node, int[] targets, int[] weights);
+
+    // Writes the cells walked along an edge from one node to the next, excluding the first one,
+    // into path starting at offset; the edge is identified by its endpoints and weight
+    void appendEdge(int from, int to, int weight, int[] path, int offset);
+}
@@ -0,0 +1,32 @@
+package org.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// One pathfinder run, recorded by Flight Recorder when a recording enables it
+@Name("org.example.Solve")
+@Label("Maze Solve")
+@Category("Mazer")
+@Description("One run of a pathfinder over a maze")
+class SolveEvent extends Event {
+    @Label("Solver")
+    String solver;
+
+    @Label("Nodes")
+    int nodes;
+
+    @Label("Path Length")
+    int pathLength;
+
+    @Label("Nodes Expanded")
+    long expanded;
+
+    @Label("Nodes Generated")
+    long generated;
+
+    @Label("Peak Open Set")
+    long peakOpen;
+}
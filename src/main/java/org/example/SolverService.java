@@ -0,0 +1,313 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs CPU-bound solves on a fixed number of workers with a bounded queue. Every session
+ * (for example one maze source) has a generation counter: a new solve supersedes the older
+ * ones of its session, queued ones are dropped before they start and a running one is
+ * interrupted, which the searches notice at their next cancellation checkpoint.
+ */
+public class SolverService implements AutoCloseable {
+    // What submit does when the queue is full
+    public enum OverflowPolicy {
+        // Block the caller until a slot frees up
+        BLOCK,
+        // Fail the new solve with a RejectedExecutionException
+        REJECT,
+        // Replace a queued solve of the same session right away; reject if there is none
+        COALESCE
+    }
+
+    private static final class Session {
+        long generation;
+        int queued;
+        Task running;
+    }
+
+    private static final class Task {
+        final Object session;
+        final long generation;
+        final Callable<?> solve;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        Thread runner;
+
+        Task(Object session, long generation, Callable<?> solve) {
+            this.session = session;
+            this.generation = generation;
+            this.solve = solve;
+        }
+    }
+
+    private final int queueCapacity;
+    private final OverflowPolicy policy;
+    private final ArrayDeque<Task> queue = new ArrayDeque<>();
+    private final Map<Object, Session> sessions = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Thread[] workers;
+    private boolean closed;
+
+    private long completedCount;
+    private long cancelledCount;
+    private long rejectedCount;
+    private long coalescedCount;
+
+    public SolverService(int workerCount, int queueCapacity, OverflowPolicy policy) {
+        if (workerCount < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Need at least one worker and one queue slot");
+        }
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+        ThreadFactory factory = threadFactory();
+        workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = factory.newThread(this::work);
+            workers[i].start();
+        }
+    }
+
+    // Queues the solve and, once it is accepted, supersedes every earlier solve of the session
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(Object session, Callable<T> solve) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Solver service is closed");
+            }
+            // Admit first: a rejected solve must leave the running and queued ones alone
+            while (!hasRoom(sessions.get(session))) {
+                if (policy != OverflowPolicy.BLOCK) {
+                    rejectedCount++;
+                    return CompletableFuture.failedFuture(new RejectedExecutionException(
+                            "Solver queue is full (" + queueCapacity + ")"));
+                }
+                notFull.awaitUninterruptibly();
+                if (closed) {
+                    throw new RejectedExecutionException("Solver service is closed");
+                }
+            }
+            Session state = sessions.computeIfAbsent(session, key -> new Session());
+            Task task = new Task(session, ++state.generation, solve);
+            supersede(state, true);
+            queue.addLast(task);
+            state.queued++;
+            notEmpty.signal();
+            return (CompletableFuture<T>) (CompletableFuture<?>) task.result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Cancels queued and running solves of the session
+    public void cancel(Object session) {
+        lock.lock();
+        try {
+            Session state = sessions.get(session);
+            if (state != null) {
+                state.generation++;
+                supersede(state, false);
+                prune(session, state);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Generation of the session's latest solve; 0 once it has nothing queued or running
+    public long getGeneration(Object session) {
+        lock.lock();
+        try {
+            Session state = sessions.get(session);
+            return state == null ? 0 : state.generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCompletedCount() {
+        lock.lock();
+        try {
+            return completedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCancelledCount() {
+        lock.lock();
+        try {
+            return cancelledCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedCount() {
+        lock.lock();
+        try {
+            return rejectedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalescedCount() {
+        lock.lock();
+        try {
+            return coalescedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Must hold the lock. A queued solve of the same session is replaced by the new one, so
+    // BLOCK and COALESCE count its slot as free; REJECT only admits into a slot that is free now
+    private boolean hasRoom(Session state) {
+        int replaced = state == null || policy == OverflowPolicy.REJECT ? 0 : state.queued;
+        return queue.size() - replaced < queueCapacity;
+    }
+
+    // Must hold the lock. Interrupts the running solve of the session and drops its queued ones,
+    // counted as coalesced when a newer solve replaces them and as cancelled otherwise
+    private void supersede(Session state, boolean replaced) {
+        if (state.running != null && state.running.runner != null) {
+            state.running.runner.interrupt();
+        }
+        if (state.queued == 0) {
+            return;
+        }
+        for (Iterator<Task> it = queue.iterator(); it.hasNext(); ) {
+            Task queued = it.next();
+            if (sessions.get(queued.session) == state && queued.generation < state.generation) {
+                it.remove();
+                state.queued--;
+                if (replaced) {
+                    coalescedCount++;
+                } else {
+                    cancelledCount++;
+                }
+                queued.result.cancel(false);
+                notFull.signal();
+            }
+        }
+    }
+
+    // Must hold the lock. Forgets a session with nothing queued or running
+    private void prune(Object session, Session state) {
+        if (state.queued == 0 && state.running == null) {
+            sessions.remove(session);
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Task task;
+            Session state;
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                task = queue.pollFirst();
+                notFull.signal();
+                state = sessions.get(task.session);
+                state.queued--;
+                if (task.generation != state.generation) {
+                    cancelledCount++;
+                    task.result.cancel(false);
+                    prune(task.session, state);
+                    continue;
+                }
+                task.runner = Thread.currentThread();
+                state.running = task;
+            } finally {
+                lock.unlock();
+            }
+
+            Object value = null;
+            Throwable failure = null;
+            try {
+                value = task.solve.call();
+            } catch (Throwable t) {
+                failure = t;
+            }
+
+            lock.lock();
+            try {
+                state.running = null;
+                task.runner = null;
+                Thread.interrupted(); // Clear an interrupt that arrived after the solve finished
+                if (task.generation != state.generation || failure instanceof CancellationException
+                        || failure instanceof InterruptedException) {
+                    cancelledCount++;
+                    task.result.cancel(false);
+                } else if (failure != null) {
+                    task.result.completeExceptionally(failure);
+                } else {
+                    completedCount++;
+                    task.result.complete(value);
+                }
+                prune(task.session, state);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Stops the workers; running solves are interrupted and queued ones cancelled
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            for (Task task : queue) {
+                task.result.cancel(false);
+            }
+            queue.clear();
+            for (Session state : sessions.values()) {
+                state.generation++;
+                if (state.running != null && state.running.runner != null) {
+                    state.running.runner.interrupt();
+                }
+            }
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "solver-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class AStarPathfinderTest {
+    @Test
+    void findsShortestWalkOnSeededMazes() {
+        for (TestMazes.Case c : TestMazes.seededCases()) {
+            TestMazes.assertShortestWalk(c, AStarPathfinder.findOptimalPath(c.maze, c.start), "A*");
+        }
+    }
+
+    @Test
+    void returnsEmptyWalkWhenATargetIsUnreachable() {
+        TestMazes.Case c = TestMazes.walledOffCase();
+        TestMazes.assertShortestWalk(c, AStarPathfinder.findOptimalPath(c.maze, c.start), "A*");
+    }
+
+    @Test
+    void mazeWithoutTargetsGivesTheStartAlone() {
+        MazeModel maze = new LabyrinthGenerator(9, 9, 5).generate();
+        assertArrayEquals(new int[]{40}, AStarPathfinder.findOptimalPath(maze, 40));
+    }
+}
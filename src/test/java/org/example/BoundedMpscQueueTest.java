@@ -0,0 +1,91 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedMpscQueueTest {
+    @Test
+    void singleProducerIsFirstInFirstOutAcrossLaps() {
+        BoundedMpscQueue<Integer> queue = new BoundedMpscQueue<>(4);
+        int next = 0;
+        int expected = 0;
+        for (int lap = 0; lap < 10; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(queue.offer(next++));
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected++, queue.poll());
+            }
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void fullQueueRefusesUntilTheConsumerFreesASlot() {
+        BoundedMpscQueue<Integer> queue = new BoundedMpscQueue<>(5);
+        assertEquals(8, queue.capacity());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(8));
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(8));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(5, queue.drainTo(drained, 5));
+        assertEquals(List.of(1, 2, 3, 4, 5), drained);
+        assertEquals(3, queue.drainTo(drained, 100));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8), drained);
+    }
+
+    @Test
+    void capacityOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedMpscQueue<Integer>(1));
+        assertThrows(IllegalArgumentException.class, () -> new BoundedMpscQueue<Integer>((1 << 30) + 1));
+    }
+
+    // Every element arrives exactly once, and each producer's elements in the order it offered them
+    @Test
+    void concurrentProducersKeepTheirOwnOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        BoundedMpscQueue<long[]> queue = new BoundedMpscQueue<>(64);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!queue.offer(element)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        int[] nextOf = new int[producers];
+        for (int received = 0; received < producers * perProducer; ) {
+            long[] element = queue.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) element[0];
+            assertEquals(nextOf[producer]++, (int) element[1], "order of producer " + producer);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CooperativePlannerTest {
+    // Two robots swap ends of a corridor that has one side pocket to give way in
+    @Test
+    void robotsPassEachOtherWithoutColliding() {
+        MazeModel maze = new MazeModel(2, 7);
+        for (int col = 0; col < 6; col++) {
+            maze.setOpen(col, MazeModel.RIGHT, true);
+        }
+        maze.setOpen(3, MazeModel.DOWN, true);
+        CooperativePlanner planner = new CooperativePlanner(maze, 8);
+        planner.addRobot(0, 6);
+        planner.addRobot(6, 0);
+        planner.run(40);
+
+        assertEquals(2, planner.getArrivedCount());
+        assertEquals(0, planner.getCollisionCount());
+    }
+
+    @Test
+    void goalFieldsAreDroppedOnceNoRobotHeadsThere() {
+        MazeModel maze = new LabyrinthGenerator(10, 10, 3).generate();
+        CooperativePlanner planner = new CooperativePlanner(maze);
+        int first = planner.addRobot(0, 99);
+        int second = planner.addRobot(9, 99);
+        assertEquals(1, planner.getGoalFieldCount());
+
+        planner.setGoal(first, 50);
+        assertEquals(2, planner.getGoalFieldCount());
+        planner.setGoal(second, 50);
+        assertEquals(1, planner.getGoalFieldCount());
+        for (int goal = 0; goal < 100; goal++) {
+            planner.setGoal(first, goal);
+        }
+        assertEquals(2, planner.getGoalFieldCount());
+        assertThrows(IllegalArgumentException.class, () -> planner.setGoal(first, 100));
+    }
+}
@@ -0,0 +1,50 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DistanceOracleTest {
+    @Test
+    void distancesAndPathsMatchReferenceBfs() {
+        MazeModel maze = TestMazes.create(40, 35, 21, LabyrinthGenerator.Algorithm.BACKTRACKER, 0.05, 3);
+        maze.setTarget(maze.getCellCount() - 1, 1); // a second cell for id 1: distances go to the nearer one
+        DistanceOracle oracle = DistanceOracle.build(maze);
+        for (int id = 0; id < 3; id++) {
+            int[] expected = TestMazes.distances(maze, cellsOfTarget(maze, id));
+            for (int cell = 0; cell < maze.getCellCount(); cell++) {
+                assertEquals(expected[cell], oracle.distance(cell, id), "distance of cell " + cell + " to target " + id);
+                int[] path = oracle.pathTo(cell, id);
+                assertEquals(expected[cell] + 1, path.length, "path length from cell " + cell);
+                assertEquals(id, maze.targetAt(path[path.length - 1]));
+                if (expected[cell] > 0) {
+                    assertEquals(path[1], oracle.nextCell(cell, id));
+                }
+            }
+        }
+    }
+
+    @Test
+    void unreachableAndAbsentTargets() {
+        TestMazes.Case c = TestMazes.walledOffCase();
+        int walledId = c.maze.getTargetId(0);
+        DistanceOracle oracle = DistanceOracle.build(c.maze);
+        assertEquals(DistanceOracle.UNREACHABLE, oracle.distance(c.start, walledId));
+        assertEquals(-1, oracle.nextDirection(c.start, walledId));
+        assertEquals(0, oracle.pathTo(c.start, walledId).length);
+        assertEquals(DistanceOracle.UNREACHABLE, oracle.distance(c.start, 40));
+    }
+
+    private static int[] cellsOfTarget(MazeModel maze, int id) {
+        int[] cells = new int[maze.getTargetCount()];
+        int count = 0;
+        for (int i = 0; i < maze.getTargetCount(); i++) {
+            if (maze.getTargetId(i) == id) {
+                cells[count++] = maze.getTargetCell(i);
+            }
+        }
+        return Arrays.copyOf(cells, count);
+    }
+}
@@ -0,0 +1,18 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+class GridPathfinderTest {
+    @Test
+    void findsShortestWalkOnSeededMazes() {
+        for (TestMazes.Case c : TestMazes.seededCases()) {
+            TestMazes.assertShortestWalk(c, GridPathfinder.findShortestPathToColors(c.maze, c.start), "GridPathfinder");
+        }
+    }
+
+    @Test
+    void returnsEmptyWalkWhenATargetIsUnreachable() {
+        TestMazes.Case c = TestMazes.walledOffCase();
+        TestMazes.assertShortestWalk(c, GridPathfinder.findShortestPathToColors(c.maze, c.start), "GridPathfinder");
+    }
+}
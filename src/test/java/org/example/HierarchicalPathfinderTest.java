@@ -0,0 +1,48 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+class HierarchicalPathfinderTest {
+    @Test
+    void findsShortestWalkOnSeededMazes() {
+        for (TestMazes.Case c : TestMazes.seededCases()) {
+            TestMazes.assertShortestWalk(c, AStarPathfinder.findOptimalPath(c.maze, c.start,
+                    AStarPathfinder.Strategy.HIERARCHICAL), "HIERARCHICAL strategy");
+            TestMazes.assertShortestWalk(c, new HierarchicalPathfinder(c.maze, 8).findOptimalPath(c.start),
+                    "8x8 clusters");
+        }
+    }
+
+    @Test
+    void returnsEmptyWalkWhenATargetIsUnreachable() {
+        TestMazes.Case c = TestMazes.walledOffCase();
+        TestMazes.assertShortestWalk(c, new HierarchicalPathfinder(c.maze, 8).findOptimalPath(c.start), "8x8 clusters");
+    }
+
+    // Only the clusters around a change are rebuilt; the result must match a fresh search
+    @Test
+    void followsWallAndTargetChanges() {
+        MazeModel maze = TestMazes.create(30, 30, 13, LabyrinthGenerator.Algorithm.BACKTRACKER, 0.1, 3);
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(maze, 8);
+        SplittableRandom random = new SplittableRandom(13);
+        for (int change = 0; change < 100; change++) {
+            int cell = random.nextInt(maze.getCellCount());
+            int direction = random.nextInt(4);
+            if (change % 5 == 0 && !maze.isTarget(cell)) {
+                int from = maze.getTargetCell(random.nextInt(maze.getTargetCount()));
+                maze.setTarget(cell, maze.targetAt(from));
+                maze.clearTarget(from);
+                pathfinder.targetChanged(from);
+                pathfinder.targetChanged(cell);
+            } else if (maze.neighbor(cell, direction) >= 0) {
+                maze.setOpen(cell, direction, !maze.isOpen(cell, direction));
+                pathfinder.wallChanged(cell, direction);
+            }
+            int start = random.nextInt(maze.getCellCount());
+            TestMazes.assertShortestWalk(maze, start, TestMazes.shortestWalkLength(maze, start),
+                    pathfinder.findOptimalPath(start), "change " + change);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class IncrementalPlannerTest {
+    @Test
+    void findsShortestWalkOnSeededMazes() {
+        for (TestMazes.Case c : TestMazes.seededCases()) {
+            TestMazes.assertShortestWalk(c, new IncrementalPlanner(c.maze, c.start, false).replan(), "distance fields");
+            TestMazes.assertShortestWalk(c, new IncrementalPlanner(c.maze, c.start, true).replan(), "hierarchical");
+        }
+    }
+
+    @Test
+    void returnsEmptyWalkWhenATargetIsUnreachable() {
+        TestMazes.Case c = TestMazes.walledOffCase();
+        TestMazes.assertShortestWalk(c, new IncrementalPlanner(c.maze, c.start, false).replan(), "distance fields");
+        TestMazes.assertShortestWalk(c, new IncrementalPlanner(c.maze, c.start, true).replan(), "hierarchical");
+    }
+
+    @Test
+    void mazeWithoutTargetsGivesTheRobotAlone() {
+        MazeModel maze = new LabyrinthGenerator(9, 9, 5).generate();
+        assertArrayEquals(new int[]{40}, new IncrementalPlanner(maze, 40, false).replan());
+    }
+
+    @Test
+    void followsWallTargetAndRobotChanges() {
+        for (boolean hierarchical : new boolean[]{false, true}) {
+            MazeModel maze = TestMazes.create(24, 24, 11, LabyrinthGenerator.Algorithm.ELLER, 0.1, 3);
+            SplittableRandom random = new SplittableRandom(11);
+            IncrementalPlanner planner = new IncrementalPlanner(maze, 0, hierarchical);
+            for (int change = 0; change < 150; change++) {
+                int cell = random.nextInt(maze.getCellCount());
+                switch (random.nextInt(4)) {
+                    case 0 -> planner.setRobot(cell);
+                    case 1 -> {
+                        int from = maze.getTargetCell(random.nextInt(maze.getTargetCount()));
+                        if (!maze.isTarget(cell)) {
+                            planner.moveTarget(from, cell);
+                        }
+                    }
+                    default -> {
+                        int direction = random.nextInt(4);
+                        if (maze.neighbor(cell, direction) >= 0) {
+                            planner.setWall(cell, direction, !maze.isOpen(cell, direction));
+                        }
+                    }
+                }
+                int robot = planner.getRobot();
+                TestMazes.assertShortestWalk(maze, robot, TestMazes.shortestWalkLength(maze, robot), planner.replan(),
+                        (hierarchical ? "hierarchical" : "distance fields") + ", change " + change);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example;
+
+import com.illposed.osc.OSCMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IngestPipelineTest {
+    @Test
+    void keepsOnlyTheLastUpdateOfEachWallAndRobot() {
+        OSCMessage open = wall(2, 3, MazeModel.RIGHT, 1);
+        OSCMessage robot = message(MazeSession.ROBOT, 0, 0);
+        OSCMessage other = wall(5, 5, MazeModel.DOWN, 1);
+        OSCMessage closeFromNeighbour = wall(2, 4, MazeModel.LEFT, 0); // same wall as open
+        OSCMessage lastRobot = message(MazeSession.ROBOT, 1, 1);
+
+        List<OSCMessage> result = IngestPipeline.coalesce(List.of(open, robot, other, closeFromNeighbour, lastRobot));
+        assertEquals(List.of(closeFromNeighbour, lastRobot, other), result);
+    }
+
+    @Test
+    void dropsEverythingBeforeTheLastInit() {
+        OSCMessage init = message(MazeSession.INIT, 10, 10);
+        OSCMessage after = wall(1, 1, MazeModel.UP, 1);
+        assertEquals(List.of(init, after), IngestPipeline.coalesce(List.of(wall(1, 1, MazeModel.UP, 0), init, after)));
+    }
+
+    // open W, a blob that closes W, open W again: W must end open, so the last update stays after the blob
+    @Test
+    void wallUpdatesAreNotMovedAcrossABoardDelta() {
+        OSCMessage open = wall(2, 3, MazeModel.RIGHT, 1);
+        OSCMessage robot = message(MazeSession.ROBOT, 0, 0);
+        OSCMessage blob = new OSCMessage(MazeSession.UPDATE, List.of(new byte[]{1, 1, 1, 0, 0, 0, 0}));
+        OSCMessage reopen = wall(2, 3, MazeModel.RIGHT, 1);
+        OSCMessage lastRobot = message(MazeSession.ROBOT, 1, 1);
+        OSCMessage close = wall(2, 3, MazeModel.RIGHT, 0);
+
+        List<OSCMessage> result = IngestPipeline.coalesce(List.of(open, robot, blob, reopen, lastRobot, close));
+        assertEquals(List.of(open, robot, blob, close, lastRobot), result);
+    }
+
+    private static OSCMessage wall(int row, int col, int direction, int open) {
+        return message(MazeSession.UPDATE, row, col, direction, open);
+    }
+
+    private static OSCMessage message(String address, Object... args) {
+        return new OSCMessage(address, List.of(args));
+    }
+}
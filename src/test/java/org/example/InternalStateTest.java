@@ -0,0 +1,138 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InternalStateTest {
+    private static final int ROWS = 12;
+    private static final int COLS = 20;
+
+    // Replays encoded deltas of every shape and checks the board and the reported changes
+    @Test
+    void encodedDeltasReplayOntoTheBoard() {
+        SplittableRandom random = new SplittableRandom(5);
+        InternalState state = new InternalState();
+        state.init(ROWS, COLS);
+        int[] board = new int[ROWS * COLS];
+        for (int round = 0; round < 200; round++) {
+            int[] next = board.clone();
+            switch (round % 4) {
+                case 0 -> next[random.nextInt(next.length)] = random.nextInt(256);            // one cell
+                case 1 -> Arrays.fill(next, random.nextInt(next.length / 2), next.length / 2 + 5, round);  // a run
+                case 2 -> {                                                                      // scattered, wide values
+                    for (int i = 0; i < 10; i++) {
+                        next[random.nextInt(next.length)] = random.nextInt() >> random.nextInt(32);
+                    }
+                }
+                default -> {                                                                     // everything
+                    for (int i = 0; i < next.length; i++) {
+                        next[i] = random.nextInt(70000);
+                    }
+                }
+            }
+            long epoch = state.getEpoch();
+            int[] changed = state.applyDelta(InternalState.encodeDelta(board, next, ROWS, COLS));
+
+            assertArrayEquals(next, state.getSnapshot().toArray(), "board after round " + round);
+            assertArrayEquals(changedCells(board, next), changed, "changed cells of round " + round);
+            assertEquals(changed.length == 0 ? epoch : epoch + 1, state.getEpoch(), "epoch after round " + round);
+            board = next;
+        }
+    }
+
+    @Test
+    void vetoedDeltaChangesNothing() {
+        InternalState state = boardOf(1, 2, 3, 4);
+        long epoch = state.getEpoch();
+        byte[] delta = InternalState.encodeDelta(new int[]{1, 2, 3, 4}, new int[]{9, 9, 9, 9}, 2, 2);
+        assertThrows(IllegalArgumentException.class, () -> state.applyDelta(delta, (index, value) -> {
+            if (index == 2) {
+                throw new IllegalArgumentException("cell 2 is locked");
+            }
+        }));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, state.getSnapshot().toArray());
+        assertEquals(epoch, state.getEpoch());
+
+        // The next delta starts from the published board, not from the cells written before the veto
+        state.applyDelta(InternalState.encodeDelta(new int[]{1, 2, 3, 4}, new int[]{1, 2, 3, 5}, 2, 2));
+        assertArrayEquals(new int[]{1, 2, 3, 5}, state.getSnapshot().toArray());
+    }
+
+    @Test
+    void malformedDeltasChangeNothing() {
+        InternalState state = boardOf(1, 2, 3, 4);
+        long epoch = state.getEpoch();
+        byte[] delta = InternalState.encodeDelta(new int[]{1, 2, 3, 4}, new int[]{5, 6, 7, 8}, 2, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> state.applyDelta(Arrays.copyOf(delta, delta.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> state.applyDelta(Arrays.copyOf(delta, delta.length + 1)));
+        byte[] badVersion = delta.clone();
+        badVersion[0] = InternalState.FORMAT_VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> state.applyDelta(badVersion));
+        byte[] otherSize = InternalState.encodeDelta(new int[6], new int[]{1, 1, 1, 1, 1, 1}, 2, 3);
+        assertThrows(IllegalArgumentException.class, () -> state.applyDelta(otherSize));
+
+        assertArrayEquals(new int[]{1, 2, 3, 4}, state.getSnapshot().toArray());
+        assertEquals(epoch, state.getEpoch());
+    }
+
+    // A failed delta undoes only its own writes; cells set earlier in the same batch stay pending
+    @Test
+    void failedDeltaKeepsEarlierUnpublishedWrites() {
+        InternalState state = boardOf(1, 2, 3, 4);
+        state.set(0, 6);
+        state.set(3, 7);
+        byte[] delta = InternalState.encodeDelta(new int[]{6, 2, 3, 7}, new int[]{9, 9, 9, 9}, 2, 2);
+        assertThrows(IllegalArgumentException.class, () -> state.applyDelta(delta, (index, value) -> {
+            if (index == 3) {
+                throw new IllegalArgumentException("cell 3 is locked");
+            }
+        }));
+        assertThrows(IllegalArgumentException.class, () -> state.applyDelta(Arrays.copyOf(delta, delta.length - 1)));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, state.getSnapshot().toArray());
+
+        state.publish();
+        assertArrayEquals(new int[]{6, 2, 3, 7}, state.getSnapshot().toArray());
+    }
+
+    @Test
+    void snapshotOutlivesLaterWritesUntilItsBufferIsReused() {
+        InternalState state = boardOf(1, 2, 3, 4);
+        InternalState.Snapshot snapshot = state.getSnapshot();
+        state.set(0, 7);
+        state.publish();
+        assertEquals(1, snapshot.get(0));
+        assertEquals(7, state.getSnapshot().get(0));
+
+        // The second write reuses the first snapshot's buffer
+        state.set(1, 8);
+        state.publish();
+        assertNull(snapshot.toArray());
+        assertArrayEquals(new int[]{7, 8, 3, 4}, state.getSnapshot().toArray());
+    }
+
+    private static InternalState boardOf(int... cells) {
+        InternalState state = new InternalState();
+        state.init(2, cells.length / 2);
+        state.applyDelta(InternalState.encodeDelta(new int[cells.length], cells, 2, cells.length / 2));
+        return state;
+    }
+
+    private static int[] changedCells(int[] before, int[] after) {
+        int[] cells = new int[before.length];
+        int count = 0;
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] != after[i]) {
+                cells[count++] = i;
+            }
+        }
+        return Arrays.copyOf(cells, count);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+// Searches on the contracted graph must return the same walk lengths as on every cell
+class JunctionGraphTest {
+    @Test
+    void contractedSearchesFindShortestWalks() {
+        for (TestMazes.Case c : TestMazes.seededCases()) {
+            JunctionGraph graph = JunctionGraph.build(c.maze, c.start);
+            TestMazes.assertShortestWalk(c, AStarPathfinder.findOptimalPath(graph), "A* on junctions");
+            TestMazes.assertShortestWalk(c, GridPathfinder.findShortestPathToColors(graph), "BFS on junctions");
+            TestMazes.assertShortestWalk(c, AStarPathfinder.findOptimalPath(c.maze, c.start,
+                    AStarPathfinder.Strategy.JUNCTION_GRAPH), "JUNCTION_GRAPH strategy");
+        }
+    }
+
+    @Test
+    void returnsEmptyWalkWhenATargetIsUnreachable() {
+        TestMazes.Case c = TestMazes.walledOffCase();
+        TestMazes.assertShortestWalk(c, AStarPathfinder.findOptimalPath(JunctionGraph.build(c.maze, c.start)),
+                "A* on junctions");
+    }
+}
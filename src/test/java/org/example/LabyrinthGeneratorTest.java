@@ -0,0 +1,52 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LabyrinthGeneratorTest {
+    private static final int[][] SIZES = {{1, 1}, {1, 17}, {17, 1}, {2, 2}, {19, 23}, {64, 64}, {3, 200}};
+
+    // A perfect maze is a spanning tree of the grid: cells - 1 passages and every cell reachable
+    @Test
+    void everyAlgorithmCarvesAPerfectMaze() {
+        for (LabyrinthGenerator.Algorithm algorithm : LabyrinthGenerator.Algorithm.values()) {
+            for (int[] size : SIZES) {
+                for (long seed = 1; seed <= 5; seed++) {
+                    MazeModel maze = new LabyrinthGenerator(size[0], size[1], seed).generate(algorithm);
+                    String name = algorithm + " " + size[0] + "x" + size[1] + " seed " + seed;
+                    assertEquals(maze.getCellCount() - 1, passageCount(maze), name + ": passages");
+                    for (int distance : TestMazes.distances(maze, 0)) {
+                        assertTrue(distance >= 0, name + ": every cell must be reachable");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void streamedRowsMatchTheEllerMaze() {
+        LabyrinthGenerator generator = new LabyrinthGenerator(25, 31, 8);
+        MazeModel maze = generator.generate(LabyrinthGenerator.Algorithm.ELLER);
+        int[] rowsSeen = {0};
+        generator.generateRows((row, openRight, openDown) -> {
+            assertEquals(rowsSeen[0]++, row);
+            for (int col = 0; col < maze.getCols(); col++) {
+                int cell = maze.index(row, col);
+                assertEquals(maze.isOpen(cell, MazeModel.RIGHT), openRight[col], "right of " + cell);
+                assertEquals(maze.isOpen(cell, MazeModel.DOWN), openDown[col], "below " + cell);
+            }
+        });
+        assertEquals(maze.getRows(), rowsSeen[0]);
+    }
+
+    private static int passageCount(MazeModel maze) {
+        int passages = 0;
+        for (int cell = 0; cell < maze.getCellCount(); cell++) {
+            if (maze.isOpen(cell, MazeModel.RIGHT)) passages++;
+            if (maze.isOpen(cell, MazeModel.DOWN)) passages++;
+        }
+        return passages;
+    }
+}
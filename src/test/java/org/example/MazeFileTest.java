@@ -0,0 +1,96 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MazeFileTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void writtenMazeOpensUnchanged() throws IOException {
+        // 37 x 29 cells do not fill the last passage word, 7 targets need padding after the ids
+        MazeModel maze = TestMazes.create(37, 29, 4, LabyrinthGenerator.Algorithm.ELLER, 0.1, 7);
+        Path path = dir.resolve("maze.bin");
+        MazeFile.write(path, maze, 4);
+
+        MazeFile file = MazeFile.open(path);
+        assertEquals(MazeFile.VERSION, file.getVersion());
+        assertEquals(4, file.getSeed());
+        assertSameMaze(maze, file.getMaze());
+        assertEquals(RoutePlanner.planRoute(maze, 0).length, RoutePlanner.planRoute(file.getMaze(), 0).length);
+    }
+
+    @Test
+    void readOnlyMazeRefusesWallChanges() throws IOException {
+        Path path = dir.resolve("maze.bin");
+        MazeFile.write(path, new LabyrinthGenerator(8, 8, 1).generate(), 1);
+        MazeModel maze = MazeFile.open(path).getMaze();
+        assertThrows(ReadOnlyBufferException.class, () -> maze.setOpen(0, MazeModel.RIGHT, !maze.isOpen(0, MazeModel.RIGHT)));
+    }
+
+    @Test
+    void writableMazeKeepsChangesOutOfTheFile() throws IOException {
+        Path path = dir.resolve("maze.bin");
+        MazeModel original = new LabyrinthGenerator(8, 8, 1).generate();
+        MazeFile.write(path, original, 1);
+        boolean open = original.isOpen(0, MazeModel.RIGHT);
+
+        MazeModel changed = MazeFile.open(path, true).getMaze();
+        changed.setOpen(0, MazeModel.RIGHT, !open);
+        assertEquals(!open, changed.isOpen(0, MazeModel.RIGHT));
+        assertSameMaze(original, MazeFile.open(path).getMaze());
+    }
+
+    @Test
+    void corruptFilesAreRejected() throws IOException {
+        Path path = dir.resolve("maze.bin");
+        MazeFile.write(path, new LabyrinthGenerator(8, 8, 1).generate(), 1);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path truncated = dir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> MazeFile.open(truncated));
+
+        Path badMagic = dir.resolve("magic.bin");
+        byte[] copy = bytes.clone();
+        copy[0] = 'X';
+        Files.write(badMagic, copy);
+        assertThrows(IOException.class, () -> MazeFile.open(badMagic));
+
+        Path badVersion = dir.resolve("version.bin");
+        copy = bytes.clone();
+        copy[4] = (byte) (MazeFile.VERSION + 1);
+        Files.write(badVersion, copy);
+        assertThrows(IOException.class, () -> MazeFile.open(badVersion));
+
+        Path tooShort = dir.resolve("short.bin");
+        Files.write(tooShort, new byte[12]);
+        assertThrows(IOException.class, () -> MazeFile.open(tooShort));
+    }
+
+    private static void assertSameMaze(MazeModel expected, MazeModel actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getCols(), actual.getCols());
+        for (int cell = 0; cell < expected.getCellCount(); cell++) {
+            for (int direction = 0; direction < 4; direction++) {
+                assertEquals(expected.isOpen(cell, direction), actual.isOpen(cell, direction),
+                        "wall " + direction + " of cell " + cell);
+            }
+        }
+        assertEquals(expected.getTargetCount(), actual.getTargetCount());
+        for (int i = 0; i < expected.getTargetCount(); i++) {
+            assertEquals(expected.getTargetCell(i), actual.getTargetCell(i));
+            assertEquals(expected.getTargetId(i), actual.getTargetId(i));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MazeSeedTest {
+    @Test
+    void sameSeedCarvesTheSameMaze() {
+        for (LabyrinthGenerator.Algorithm algorithm : LabyrinthGenerator.Algorithm.values()) {
+            MazeModel first = new LabyrinthGenerator(30, 40, 99).generate(algorithm);
+            MazeModel second = new LabyrinthGenerator(30, 40, new MazeSeed(99)).generate(algorithm);
+            MazeModel other = new LabyrinthGenerator(30, 40, 100).generate(algorithm);
+            assertTrue(samePassages(first, second), algorithm + " must be deterministic");
+            assertFalse(samePassages(first, other), algorithm + " must depend on the seed");
+        }
+    }
+
+    @Test
+    void targetsLandOnDistinctFreeCells() {
+        MazeModel maze = new LabyrinthGenerator(4, 4, 2).generate();
+        LabyrinthGenerator.placeTargets(maze, 15, new MazeSeed(2), 5);
+        assertEquals(15, maze.getTargetCount());
+        assertFalse(maze.isTarget(5));
+        for (int id = 0; id < 15; id++) {
+            assertTrue((maze.getTargetIdMask() & 1L << id) != 0, "target " + id + " placed");
+        }
+    }
+
+    private static boolean samePassages(MazeModel a, MazeModel b) {
+        for (int cell = 0; cell < a.getCellCount(); cell++) {
+            if (a.isOpen(cell, MazeModel.RIGHT) != b.isOpen(cell, MazeModel.RIGHT)
+                    || a.isOpen(cell, MazeModel.DOWN) != b.isOpen(cell, MazeModel.DOWN)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example;
+
+import com.illposed.osc.OSCMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MazeSessionTest {
+    // Changes that arrive while the planner is built are applied to the maze at once and replayed on the planner
+    @Test
+    void changesDuringTheBuildReachMazeAndPlanner() throws InterruptedException {
+        try (SolverService solver = new SolverService(1, 4, SolverService.OverflowPolicy.COALESCE)) {
+            InternalState board = new InternalState();
+            MazeSession session = new MazeSession(board, solver, new LogBuffer());
+            session.apply(List.of(message(MazeSession.INIT, 12, 12),
+                    message(MazeSession.UPDATE, 3, 4, MazeModel.RIGHT, 1),
+                    message(MazeSession.UPDATE, 3, 4, MazeModel.DOWN, 1),
+                    message(MazeSession.ROBOT, 5, 5)));
+            MazeModel view = takeView(session);
+
+            int[] path = null;
+            for (int attempt = 0; attempt < 200 && path == null; attempt++) {
+                Thread.sleep(10);
+                session.apply(List.of());
+                MazeSession.RenderFrame frame = session.takeFrame();
+                if (frame != null) {
+                    frame.applyTo(view);
+                    path = frame.getPath();
+                }
+            }
+            assertNotNull(path, "the planner must be handed over");
+            int robot = view.index(5, 5);
+            TestMazes.assertShortestWalk(view, robot, TestMazes.shortestWalkLength(view, robot), path, "session route");
+            assertTrue(view.isOpen(view.index(3, 4), MazeModel.RIGHT));
+            assertBoardMatches(view, board);
+        }
+    }
+
+    // Without a planner the maze, its board and the view still follow every change
+    @Test
+    void failedBuildLeavesTheMazeFollowingTheStream() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        try (SolverService solver = new SolverService(1, 1, SolverService.OverflowPolicy.REJECT)) {
+            solver.submit("busy", () -> { release.await(); return null; });
+            Thread.sleep(50);
+            solver.submit("queued", () -> null);
+
+            InternalState board = new InternalState();
+            LogBuffer log = new LogBuffer();
+            MazeSession session = new MazeSession(board, solver, log);
+            session.apply(List.of(message(MazeSession.INIT, 8, 8)));
+            MazeModel view = takeView(session);
+            release.countDown();
+
+            for (int i = 0; i < 3; i++) {
+                boolean open = !view.isOpen(view.index(2, 2), MazeModel.RIGHT);
+                session.apply(List.of(message(MazeSession.UPDATE, 2, 2, MazeModel.RIGHT, open ? 1 : 0)));
+                MazeSession.RenderFrame frame = session.takeFrame();
+                frame.applyTo(view);
+                assertNull(frame.getPath());
+                assertEquals(open, view.isOpen(view.index(2, 2), MazeModel.RIGHT));
+                assertBoardMatches(view, board);
+            }
+        }
+    }
+
+    // The view's copy of a newly initialised maze with the changes of the same batch applied
+    private static MazeModel takeView(MazeSession session) {
+        MazeSession.RenderFrame frame = session.takeFrame();
+        MazeModel view = frame.getMaze();
+        frame.applyTo(view);
+        return view;
+    }
+
+    private static void assertBoardMatches(MazeModel view, InternalState board) {
+        InternalState.Snapshot snapshot = board.getSnapshot();
+        for (int cell = 0; cell < view.getCellCount(); cell++) {
+            assertEquals(MazeSession.boardValue(view, cell), snapshot.get(cell), "board value of cell " + cell);
+        }
+    }
+
+    private static OSCMessage message(String address, Object... args) {
+        return new OSCMessage(address, List.of(args));
+    }
+}
@@ -0,0 +1,39 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelBfsTest {
+    // Large enough for frontiers above the parallel threshold
+    @Test
+    void distancesMatchReferenceBfs() {
+        MazeModel maze = TestMazes.create(300, 300, 31, LabyrinthGenerator.Algorithm.ELLER, 0.2, 3);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelBfs bfs = new ParallelBfs(pool);
+            int[] sources = {0, 45_000, maze.getCellCount() - 1};
+            int[] expected = TestMazes.distances(maze, sources);
+            int[] distances = new int[maze.getCellCount()];
+            int farthest = bfs.distances(maze, sources, distances);
+
+            assertArrayEquals(expected, distances);
+            assertEquals(Arrays.stream(expected).max().getAsInt(), farthest);
+            assertArrayEquals(TestMazes.distances(maze, 123), bfs.distances(maze, 123));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void unreachableCellsStayMarked() {
+        TestMazes.Case c = TestMazes.walledOffCase();
+        int[] distances = new ParallelBfs().distances(c.maze, c.start);
+        assertEquals(ParallelBfs.UNREACHABLE, distances[c.maze.getTargetCell(0)]);
+        assertArrayEquals(TestMazes.distances(c.maze, c.start), distances);
+    }
+}
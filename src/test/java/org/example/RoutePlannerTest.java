@@ -0,0 +1,35 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class RoutePlannerTest {
+    @Test
+    void findsShortestWalkOnSeededMazes() {
+        for (TestMazes.Case c : TestMazes.seededCases()) {
+            TestMazes.assertShortestWalk(c, RoutePlanner.planRoute(c.maze, c.start), "RoutePlanner");
+        }
+    }
+
+    // The passes giant mazes use: ParallelBfs over the whole maze
+    @Test
+    void parallelPassesFindTheSameWalkLengths() {
+        for (TestMazes.Case c : TestMazes.seededCases()) {
+            TestMazes.assertShortestWalk(c, RoutePlanner.planRoute(c.maze, c.start, true), "RoutePlanner, parallel");
+        }
+    }
+
+    @Test
+    void returnsEmptyWalkWhenATargetIsUnreachable() {
+        TestMazes.Case c = TestMazes.walledOffCase();
+        TestMazes.assertShortestWalk(c, RoutePlanner.planRoute(c.maze, c.start), "RoutePlanner");
+        TestMazes.assertShortestWalk(c, RoutePlanner.planRoute(c.maze, c.start, true), "RoutePlanner, parallel");
+    }
+
+    @Test
+    void mazeWithoutTargetsGivesTheStartAlone() {
+        MazeModel maze = new LabyrinthGenerator(9, 9, 5).generate();
+        assertArrayEquals(new int[]{40}, RoutePlanner.planRoute(maze, 40));
+    }
+}
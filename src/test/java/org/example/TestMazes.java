@@ -0,0 +1,168 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Seeded mazes and plain reference searches the solvers are checked against
+final class TestMazes {
+    private TestMazes() {
+    }
+
+    // A seeded maze, a start cell on it and the length of the shortest walk from there
+    static final class Case {
+        final MazeModel maze;
+        final int start;
+        final int expected;
+        final String name;
+
+        Case(MazeModel maze, int start, String name) {
+            this.maze = maze;
+            this.start = start;
+            this.expected = shortestWalkLength(maze, start);
+            this.name = name;
+        }
+    }
+
+    // Perfect and braided mazes from both generators with one to four target ids
+    static List<Case> seededCases() {
+        SplittableRandom random = new SplittableRandom(7);
+        List<Case> cases = new ArrayList<>();
+        for (int seed = 1; seed <= 12; seed++) {
+            LabyrinthGenerator.Algorithm algorithm = LabyrinthGenerator.Algorithm.values()[seed % 2];
+            double braid = seed % 3 == 0 ? 0 : 0.15;
+            MazeModel maze = create(17 + seed, 29 - seed, seed, algorithm, braid, 1 + seed % 4);
+            cases.add(new Case(maze, random.nextInt(maze.getCellCount()),
+                    "seed " + seed + " (" + algorithm + ", braid " + braid + ")"));
+        }
+        return cases;
+    }
+
+    // Maze whose first target is walled in, with a start cell outside it
+    static Case walledOffCase() {
+        MazeModel maze = create(20, 20, 3, LabyrinthGenerator.Algorithm.BACKTRACKER, 0.1, 3);
+        int target = maze.getTargetCell(0);
+        for (int direction = 0; direction < 4; direction++) {
+            maze.setOpen(target, direction, false);
+        }
+        return new Case(maze, target == 0 ? 1 : 0, "walled-off target");
+    }
+
+    // Perfect maze with the given share of its closed inner walls opened again, so there are loops
+    static MazeModel create(int rows, int cols, long seed, LabyrinthGenerator.Algorithm algorithm,
+                            double braid, int targetCount) {
+        MazeModel maze = new LabyrinthGenerator(rows, cols, seed).generate(algorithm);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int cell = 0; cell < maze.getCellCount(); cell++) {
+            for (int direction = MazeModel.RIGHT; direction <= MazeModel.DOWN; direction++) {
+                if (maze.neighbor(cell, direction) >= 0 && !maze.isOpen(cell, direction)
+                        && random.nextDouble() < braid) {
+                    maze.setOpen(cell, direction, true);
+                }
+            }
+        }
+        LabyrinthGenerator.placeTargets(maze, targetCount, new MazeSeed(seed));
+        return maze;
+    }
+
+    // Cells in the shortest walk from start through one cell of every target id, 0 if there is
+    // none. Plain BFS over (cell, collected ids) states, independent of every solver.
+    static int shortestWalkLength(MazeModel maze, int start) {
+        long idMask = maze.getTargetIdMask();
+        int colorBits = Long.bitCount(idMask);
+        int fullMask = (1 << colorBits) - 1;
+        int[] distance = new int[maze.getCellCount() << colorBits];
+        Arrays.fill(distance, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int first = start << colorBits | bitOf(maze, idMask, start);
+        distance[first] = 0;
+        queue.add(first);
+        int[] neighbors = new int[4];
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int cell = state >>> colorBits;
+            int mask = state & fullMask;
+            if (mask == fullMask) {
+                return distance[state] + 1;
+            }
+            int count = maze.openNeighbors(cell, neighbors);
+            for (int i = 0; i < count; i++) {
+                int next = neighbors[i] << colorBits | mask | bitOf(maze, idMask, neighbors[i]);
+                if (distance[next] < 0) {
+                    distance[next] = distance[state] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return 0;
+    }
+
+    // Steps from every cell to the nearest source, -1 where none can be reached
+    static int[] distances(MazeModel maze, int... sources) {
+        int[] distance = new int[maze.getCellCount()];
+        Arrays.fill(distance, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int source : sources) {
+            distance[source] = 0;
+            queue.add(source);
+        }
+        int[] neighbors = new int[4];
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int count = maze.openNeighbors(cell, neighbors);
+            for (int i = 0; i < count; i++) {
+                if (distance[neighbors[i]] < 0) {
+                    distance[neighbors[i]] = distance[cell] + 1;
+                    queue.add(neighbors[i]);
+                }
+            }
+        }
+        return distance;
+    }
+
+    // Fails unless path is a valid walk of the expected length, or empty where there is none
+    static void assertShortestWalk(Case c, int[] path, String solver) {
+        assertShortestWalk(c.maze, c.start, c.expected, path, solver + ", " + c.name);
+    }
+
+    static void assertShortestWalk(MazeModel maze, int start, int expected, int[] path, String solver) {
+        assertEquals(expected, path.length, solver + ": walk length");
+        if (expected > 0) {
+            assertValidWalk(maze, start, path);
+        }
+    }
+
+    // Fails unless path starts on start, only steps through open walls and collects every target id
+    static void assertValidWalk(MazeModel maze, int start, int[] path) {
+        assertEquals(start, path[0], "walk must begin on the start cell");
+        long collected = 0;
+        for (int i = 0; i < path.length; i++) {
+            if (maze.isTarget(path[i])) {
+                collected |= 1L << maze.targetAt(path[i]);
+            }
+            if (i > 0) {
+                assertTrue(isStep(maze, path[i - 1], path[i]), "no open wall between " + path[i - 1] + " and " + path[i]);
+            }
+        }
+        assertEquals(maze.getTargetIdMask(), collected, "walk must collect every target id");
+    }
+
+    private static boolean isStep(MazeModel maze, int from, int to) {
+        for (int direction = 0; direction < 4; direction++) {
+            if (maze.neighbor(from, direction) == to) {
+                return maze.isOpen(from, direction);
+            }
+        }
+        return false;
+    }
+
+    private static int bitOf(MazeModel maze, long idMask, int cell) {
+        int id = maze.targetAt(cell);
+        return id == MazeModel.NO_TARGET ? 0 : 1 << Long.bitCount(idMask & ((1L << id) - 1));
+    }
+}